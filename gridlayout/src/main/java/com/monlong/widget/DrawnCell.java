@@ -0,0 +1,48 @@
+package com.monlong.widget;
+
+import android.graphics.drawable.Drawable;
+
+/**
+ * @Descirption: 由GridLayout直接绘制的简单元素（图标+文字），不对应任何childView
+ * @Author: monlong
+ * @Email: 826309156@qq.com
+ * @Date: 2026-10-19 19:10
+ * @Version: 1.0.0
+ */
+public class DrawnCell {
+
+    private final CharSequence mText;
+    private final Drawable mIcon;
+    private final CharSequence mContentDescription;
+
+    public DrawnCell(CharSequence text) {
+        this(text, null, null);
+    }
+
+    public DrawnCell(CharSequence text, Drawable icon) {
+        this(text, icon, null);
+    }
+
+    /**
+     * @param text               文字，可为null
+     * @param icon               文字上方的图标，可为null
+     * @param contentDescription 无障碍描述，为null时使用文字
+     */
+    public DrawnCell(CharSequence text, Drawable icon, CharSequence contentDescription) {
+        mText = text;
+        mIcon = icon;
+        mContentDescription = contentDescription;
+    }
+
+    public CharSequence getText() {
+        return mText;
+    }
+
+    public Drawable getIcon() {
+        return mIcon;
+    }
+
+    public CharSequence getContentDescription() {
+        return mContentDescription != null ? mContentDescription : mText;
+    }
+}
@@ -0,0 +1,75 @@
+package com.monlong.widget;
+
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
+import android.view.accessibility.AccessibilityEvent;
+
+import java.util.List;
+
+/**
+ * @Descirption: 绘制模式无障碍支持，每个元素对应一个以位置为ID的虚拟视图
+ * @Author: monlong
+ * @Email: 826309156@qq.com
+ * @Date: 2026-10-19 19:10
+ * @Version: 1.0.0
+ */
+final class DrawnCellAccessibilityHelper extends ExploreByTouchHelper {
+
+    private final GridLayout mHost;
+    private final Rect mTempRect = new Rect();
+
+    DrawnCellAccessibilityHelper(GridLayout host) {
+        super(host);
+        mHost = host;
+    }
+
+    @Override
+    protected int getVirtualViewAt(float x, float y) {
+        int position = mHost.pointToPosition((int) x, (int) y);
+        if (position == GridLayout.INVALID_POSITION || position >= mHost.getDrawnCellCount()) {
+            return INVALID_ID;
+        }
+        return position;
+    }
+
+    @Override
+    protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+        // 只报告渲染器中已有的元素，适配器数量变化的通知到达前不会访问越界位置
+        final int count = mHost.getDrawnCellCount();
+        for (int i = 0; i < count; i++) {
+            virtualViewIds.add(i);
+        }
+    }
+
+    @Override
+    protected void onPopulateEventForVirtualView(int virtualViewId, AccessibilityEvent event) {
+        event.setContentDescription(mHost.getDrawnCellDescription(virtualViewId));
+    }
+
+    @Override
+    protected void onPopulateNodeForVirtualView(int virtualViewId,
+                                                AccessibilityNodeInfoCompat node) {
+        node.setContentDescription(mHost.getDrawnCellDescription(virtualViewId));
+        node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+        node.setClickable(true);
+
+        // 布局尚未完成时也必须设置非空区域
+        if (!mHost.getCellBounds(virtualViewId, mTempRect)) {
+            mTempRect.set(0, 0, 1, 1);
+        }
+        node.setBoundsInParent(mTempRect);
+    }
+
+    @Override
+    protected boolean onPerformActionForVirtualView(int virtualViewId, int action,
+                                                    Bundle arguments) {
+        if (action == AccessibilityNodeInfoCompat.ACTION_CLICK) {
+            mHost.performItemClick(mHost, virtualViewId);
+            sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package com.monlong.widget;
+
+import android.graphics.drawable.Drawable;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+/**
+ * @Descirption: 绘制模式适配器
+ * 只提供轻量的元素模型，GridLayout不创建任何childView，而是在onDraw中按宫格几何信息直接绘制，
+ * 适用于大量简单的图标+文字菜单项。数据变化同样通过notifyDataSetChanged和notifyItemChanged通知
+ * @Author: monlong
+ * @Email: 826309156@qq.com
+ * @Date: 2026-10-19 19:10
+ * @Version: 1.0.0
+ */
+public abstract class DrawnCellAdapter extends GridBaseAdapter {
+
+    @Override
+    public abstract DrawnCell getItem(int position);
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    /**
+     * 在GridLayout中元素直接绘制，不会调用该方法；
+     * 在其它AdapterView中使用时提供结构相同的默认视图：图标在上、文字居中的TextView
+     */
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        TextView textView = convertView instanceof TextView ? (TextView) convertView
+                : new TextView(parent.getContext());
+        DrawnCell cell = getItem(position);
+        textView.setGravity(Gravity.CENTER);
+        textView.setText(cell.getText());
+        textView.setContentDescription(cell.getContentDescription());
+
+        // 图标可能同时由GridLayout绘制，使用独立的副本避免共用bounds和callback
+        Drawable icon = cell.getIcon();
+        if (icon != null && icon.getConstantState() != null) {
+            icon = icon.getConstantState().newDrawable(parent.getResources());
+        }
+        textView.setCompoundDrawablesWithIntrinsicBounds(null, icon, null, null);
+        return textView;
+    }
+}
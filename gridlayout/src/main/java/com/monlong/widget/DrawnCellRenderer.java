@@ -0,0 +1,247 @@
+package com.monlong.widget;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.TypedValue;
+import android.view.View;
+
+/**
+ * @Descirption: 绘制模式元素渲染器
+ * 缓存每个元素的模型和文字布局（StaticLayout），文字布局只在元素宽度或内容变化时重新生成，
+ * 元素结构与example_gridlayout_item相同：图标在上、文字居中
+ * 图标的callback设置为GridLayout，动画图标或异步加载的图标可自行触发重绘
+ * @Author: monlong
+ * @Email: 826309156@qq.com
+ * @Date: 2026-10-19 19:10
+ * @Version: 1.0.0
+ */
+final class DrawnCellRenderer {
+
+    private final View mHost;
+    private final TextPaint mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBackgroundPaint = new Paint();
+    private final Paint mPressedPaint = new Paint();
+
+    private int mPaddingHorizontal;
+    private int mPaddingVertical;
+    private int mIconTextSpacing;
+
+    private DrawnCellAdapter mAdapter;
+    private DrawnCell[] mCells = new DrawnCell[0];
+    private StaticLayout[] mLayouts = new StaticLayout[0];
+
+    DrawnCellRenderer(View host) {
+        mHost = host;
+        final Resources resources = host.getResources();
+        mTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 16,
+                resources.getDisplayMetrics()));
+        mTextPaint.setColor(Color.BLACK);
+        mBackgroundPaint.setColor(Color.WHITE);
+        mPressedPaint.setColor(0xFFE0E0E0);
+        mPaddingVertical = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 15,
+                resources.getDisplayMetrics());
+        mIconTextSpacing = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 4,
+                resources.getDisplayMetrics());
+    }
+
+    /**
+     * 数据变化时丢弃所有缓存
+     *
+     * @param adapter
+     */
+    void setAdapter(DrawnCellAdapter adapter) {
+        for (DrawnCell cell : mCells) {
+            releaseCell(cell);
+        }
+        mAdapter = adapter;
+        final int count = adapter != null ? adapter.getCount() : 0;
+        mCells = new DrawnCell[count];
+        mLayouts = new StaticLayout[count];
+    }
+
+    /**
+     * 单个元素变化时丢弃其缓存
+     *
+     * @param position
+     */
+    void invalidate(int position) {
+        if (position >= 0 && position < mCells.length) {
+            releaseCell(mCells[position]);
+            mCells[position] = null;
+            mLayouts[position] = null;
+        }
+    }
+
+    /**
+     * 样式变化时丢弃所有文字布局
+     */
+    private void invalidateLayouts() {
+        mLayouts = new StaticLayout[mLayouts.length];
+    }
+
+    void setTextSize(float textSize) {
+        mTextPaint.setTextSize(textSize);
+        invalidateLayouts();
+    }
+
+    void setTextColor(int textColor) {
+        mTextPaint.setColor(textColor);
+    }
+
+    void setBackgroundColor(int backgroundColor) {
+        mBackgroundPaint.setColor(backgroundColor);
+    }
+
+    void setPressedColor(int pressedColor) {
+        mPressedPaint.setColor(pressedColor);
+    }
+
+    void setPadding(int horizontal, int vertical) {
+        mPaddingHorizontal = horizontal;
+        mPaddingVertical = vertical;
+        invalidateLayouts();
+    }
+
+    void setIconTextSpacing(int iconTextSpacing) {
+        mIconTextSpacing = iconTextSpacing;
+    }
+
+    /**
+     * 已缓存的元素数量（即最近一次数据变化时的适配器元素数量）
+     *
+     * @return
+     */
+    int getCellCount() {
+        return mCells.length;
+    }
+
+    DrawnCell getCell(int position) {
+        if (position < 0 || position >= mCells.length) {
+            return null;
+        }
+        if (mCells[position] == null) {
+            DrawnCell cell = mAdapter.getItem(position);
+            if (cell != null && cell.getIcon() != null) {
+                cell.getIcon().setCallback(mHost);
+            }
+            mCells[position] = cell;
+        }
+        return mCells[position];
+    }
+
+    /**
+     * 丢弃元素缓存时解除图标与GridLayout的关联
+     *
+     * @param cell
+     */
+    private void releaseCell(DrawnCell cell) {
+        Drawable icon = cell != null ? cell.getIcon() : null;
+        if (icon != null && icon.getCallback() == mHost) {
+            icon.setCallback(null);
+        }
+    }
+
+    /**
+     * 是否为当前缓存的元素图标（供GridLayout.verifyDrawable使用）
+     *
+     * @param drawable
+     * @return
+     */
+    boolean hasIcon(Drawable drawable) {
+        for (DrawnCell cell : mCells) {
+            if (cell != null && cell.getIcon() == drawable) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取文字布局，宽度不变时直接使用缓存
+     *
+     * @param position
+     * @param cellWidth
+     * @return
+     */
+    private StaticLayout getLayout(int position, int cellWidth) {
+        DrawnCell cell = getCell(position);
+        if (cell == null || cell.getText() == null) {
+            return null;
+        }
+
+        final int textWidth = Math.max(0, cellWidth - 2 * mPaddingHorizontal);
+        StaticLayout layout = mLayouts[position];
+        if (layout == null || layout.getWidth() != textWidth) {
+            layout = new StaticLayout(cell.getText(), mTextPaint, textWidth,
+                    Layout.Alignment.ALIGN_CENTER, 1f, 0f, false);
+            mLayouts[position] = layout;
+        }
+        return layout;
+    }
+
+    /**
+     * 计算元素高度
+     *
+     * @param position
+     * @param cellWidth 元素所占宽度
+     * @return
+     */
+    int measure(int position, int cellWidth) {
+        int height = 2 * mPaddingVertical;
+        DrawnCell cell = getCell(position);
+        Drawable icon = cell != null ? cell.getIcon() : null;
+        StaticLayout layout = getLayout(position, cellWidth);
+        if (icon != null) {
+            height += icon.getIntrinsicHeight();
+        }
+        if (layout != null) {
+            height += layout.getHeight();
+        }
+        if (icon != null && layout != null) {
+            height += mIconTextSpacing;
+        }
+        return height;
+    }
+
+    /**
+     * 在指定区域内绘制元素：背景、图标（水平居中）和文字，整体垂直居中
+     */
+    void draw(Canvas canvas, int position, int left, int top, int right, int bottom,
+              boolean pressed) {
+        canvas.drawRect(left, top, right, bottom, pressed ? mPressedPaint : mBackgroundPaint);
+
+        DrawnCell cell = getCell(position);
+        if (cell == null) {
+            return;
+        }
+
+        final int cellWidth = right - left;
+        final Drawable icon = cell.getIcon();
+        final StaticLayout layout = getLayout(position, cellWidth);
+
+        int contentHeight = measure(position, cellWidth) - 2 * mPaddingVertical;
+        int y = top + (bottom - top - contentHeight) / 2;
+
+        if (icon != null) {
+            int iconWidth = icon.getIntrinsicWidth();
+            int iconHeight = icon.getIntrinsicHeight();
+            int iconLeft = left + (cellWidth - iconWidth) / 2;
+            icon.setBounds(iconLeft, y, iconLeft + iconWidth, y + iconHeight);
+            icon.draw(canvas);
+            y += iconHeight + (layout != null ? mIconTextSpacing : 0);
+        }
+
+        if (layout != null) {
+            canvas.save();
+            canvas.translate(left + mPaddingHorizontal, y);
+            layout.draw(canvas);
+            canvas.restore();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.monlong.widget;
+
+import android.database.DataSetObserver;
+import android.widget.ListAdapter;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * @Descirption: 宫格视图与适配器之间的监听关系
+ * 只在GridLayout添加到窗口期间向适配器注册监听，且注册到适配器上的监听器只弱引用GridLayout，
+ * 生命周期较长、在多个页面间共用的适配器不会因此持有已脱离窗口的GridLayout及其全部childView
+ * @Author: monlong
+ * @Email: 826309156@qq.com
+ * @Date: 2026-10-19 18:00
+ * @Version: 1.0.0
+ */
+final class GridAdapterConnection {
+
+    /**
+     * 由GridLayout强引用，适配器上的监听器只持有其弱引用
+     */
+    private final Callback mCallback;
+
+    private ListAdapter mAdapter;
+    private boolean mAttached;
+
+    /**
+     * 已注册到适配器上的监听器，未注册时为null
+     */
+    private WeakDataSetObserver mDataSetObserver;
+    private WeakItemChangedObserver mItemChangedObserver;
+
+    GridAdapterConnection(Callback callback) {
+        mCallback = callback;
+    }
+
+    void setAdapter(ListAdapter adapter) {
+        unregister();
+        mAdapter = adapter;
+        if (mAttached) {
+            register();
+        }
+    }
+
+    void onAttachedToWindow() {
+        mAttached = true;
+        register();
+    }
+
+    void onDetachedFromWindow() {
+        mAttached = false;
+        unregister();
+    }
+
+    private void register() {
+        if (mAdapter == null || mDataSetObserver != null) {
+            return;
+        }
+
+        mDataSetObserver = new WeakDataSetObserver(mAdapter, mCallback);
+        mAdapter.registerDataSetObserver(mDataSetObserver);
+        if (mAdapter instanceof GridBaseAdapter) {
+            mItemChangedObserver = new WeakItemChangedObserver((GridBaseAdapter) mAdapter,
+                    mCallback);
+            ((GridBaseAdapter) mAdapter).registerItemChangedObserver(mItemChangedObserver);
+        }
+    }
+
+    private void unregister() {
+        if (mDataSetObserver != null) {
+            mAdapter.unregisterDataSetObserver(mDataSetObserver);
+            mDataSetObserver = null;
+        }
+        if (mItemChangedObserver != null) {
+            ((GridBaseAdapter) mAdapter).unregisterItemChangedObserver(mItemChangedObserver);
+            mItemChangedObserver = null;
+        }
+    }
+
+    /**
+     * 适配器数据变化回调
+     */
+    interface Callback {
+
+        void onDataChanged();
+
+        void onItemChanged(int position, Object payload);
+    }
+
+    /**
+     * 弱引用GridLayout的数据变化监听器，GridLayout被回收后收到通知时自动注销
+     */
+    static final class WeakDataSetObserver extends DataSetObserver {
+
+        private final ListAdapter mAdapter;
+        private final WeakReference<Callback> mCallbackRef;
+
+        WeakDataSetObserver(ListAdapter adapter, Callback callback) {
+            mAdapter = adapter;
+            mCallbackRef = new WeakReference<>(callback);
+        }
+
+        @Override
+        public void onChanged() {
+            Callback callback = mCallbackRef.get();
+            if (callback != null) {
+                callback.onDataChanged();
+            } else {
+                mAdapter.unregisterDataSetObserver(this);
+            }
+        }
+    }
+
+    /**
+     * 弱引用GridLayout的单个元素变化监听器，GridLayout被回收后收到通知时自动注销
+     */
+    static final class WeakItemChangedObserver implements GridBaseAdapter.ItemChangedObserver {
+
+        private final GridBaseAdapter mAdapter;
+        private final WeakReference<Callback> mCallbackRef;
+
+        WeakItemChangedObserver(GridBaseAdapter adapter, Callback callback) {
+            mAdapter = adapter;
+            mCallbackRef = new WeakReference<>(callback);
+        }
+
+        @Override
+        public void onItemChanged(int position, Object payload) {
+            Callback callback = mCallbackRef.get();
+            if (callback != null) {
+                callback.onItemChanged(position, payload);
+            } else {
+                mAdapter.unregisterItemChangedObserver(this);
+            }
+        }
+    }
+}
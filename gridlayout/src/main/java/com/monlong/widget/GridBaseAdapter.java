@@ -0,0 +1,71 @@
+package com.monlong.widget;
+
+import android.view.View;
+import android.widget.BaseAdapter;
+
+import java.util.ArrayList;
+
+/**
+ * @Descirption: 宫格视图适配器扩展，支持携带payload的单个元素局部刷新
+ * 调用notifyItemChanged(position, payload)时，GridLayout只会将payload交给对应位置的childView处理，
+ * 不会重新调用getView，也不会影响其它childView
+ * @Author: monlong
+ * @Email: 826309156@qq.com
+ * @Date: 2026-10-19 11:03
+ * @Version: 1.0.0
+ */
+public abstract class GridBaseAdapter extends BaseAdapter {
+
+    private final ArrayList<ItemChangedObserver> mItemChangedObservers = new ArrayList<>();
+
+    /**
+     * 通知指定位置元素发生变化，GridLayout将调用getView重新绑定该元素
+     *
+     * @param position 元素位置
+     */
+    public void notifyItemChanged(int position) {
+        notifyItemChanged(position, null);
+    }
+
+    /**
+     * 通知指定位置元素发生局部变化
+     *
+     * @param position 元素位置
+     * @param payload  变化内容，交由{@link #onBindPayload(View, int, Object)}处理，为null时重新绑定整个元素
+     */
+    public void notifyItemChanged(int position, Object payload) {
+        for (int i = mItemChangedObservers.size() - 1; i >= 0; i--) {
+            mItemChangedObservers.get(i).onItemChanged(position, payload);
+        }
+    }
+
+    /**
+     * 局部绑定，只更新payload对应的内容（如角标数量），不应重新设置整个视图
+     *
+     * @param view     该位置当前的childView
+     * @param position 元素位置
+     * @param payload  变化内容
+     * @return 已处理返回true，返回false时GridLayout将调用getView重新绑定该元素
+     */
+    public boolean onBindPayload(View view, int position, Object payload) {
+        return false;
+    }
+
+    void registerItemChangedObserver(ItemChangedObserver observer) {
+        if (!mItemChangedObservers.contains(observer)) {
+            mItemChangedObservers.add(observer);
+        }
+    }
+
+    void unregisterItemChangedObserver(ItemChangedObserver observer) {
+        mItemChangedObservers.remove(observer);
+    }
+
+    /**
+     * 单个元素变化监听器
+     */
+    interface ItemChangedObserver {
+
+        void onItemChanged(int position, Object payload);
+    }
+}
@@ -0,0 +1,386 @@
+package com.monlong.widget;
+
+import java.util.Arrays;
+
+/**
+ * @Descirption: 宫格几何信息（不可变）
+ * 测量时根据列配置、可用宽度和每行高度一次性计算出各列左右边界和各行上下边界，
+ * 布局、间隔区域绘制和坐标查找元素均基于此数据，坐标均相对于内容区域（不含padding）
+ * @Author: monlong
+ * @Email: 826309156@qq.com
+ * @Date: 2026-10-19 13:40
+ * @Version: 1.0.0
+ */
+final class GridGeometry {
+
+    static final int INVALID_INDEX = -1;
+
+    final int numColumns;
+
+    /**
+     * 元素总数
+     */
+    final int cellCount;
+
+    final int[] columnLefts;
+    final int[] columnRights;
+
+    final int[] rowTops;
+    final int[] rowBottoms;
+
+    /**
+     * 每行第一个元素的序号
+     */
+    final int[] rowStarts;
+
+    /**
+     * 每行元素个数
+     */
+    final int[] rowCellCounts;
+
+    /**
+     * 每行是否为独占整行的标题元素
+     */
+    final boolean[] rowFullSpans;
+
+    /**
+     * 内容区域总高度（含首尾间隔）
+     */
+    final int height;
+
+    /**
+     * 所有行中最右侧元素的右边界
+     */
+    final int maxRight;
+
+    private GridGeometry(int numColumns, int cellCount, int[] columnLefts, int[] columnRights,
+                         int[] rowTops, int[] rowBottoms, int[] rowStarts, int[] rowCellCounts,
+                         boolean[] rowFullSpans, int height, int maxRight) {
+        this.numColumns = numColumns;
+        this.cellCount = cellCount;
+        this.columnLefts = columnLefts;
+        this.columnRights = columnRights;
+        this.rowTops = rowTops;
+        this.rowBottoms = rowBottoms;
+        this.rowStarts = rowStarts;
+        this.rowCellCounts = rowCellCounts;
+        this.rowFullSpans = rowFullSpans;
+        this.height = height;
+        this.maxRight = maxRight;
+    }
+
+    /**
+     * 计算各列宽度
+     *
+     * @param widths         输出各列宽度，长度为列数
+     * @param columnPercents 各列宽度占比，为null时平分
+     * @param percentsTotal  宽度占比总大小
+     * @param usableWidth    去除间隔后的可用宽度
+     */
+    static void columnWidths(int[] widths, float[] columnPercents, float percentsTotal,
+                             int usableWidth) {
+        final int numColumns = widths.length;
+        for (int col = 0; col < numColumns; col++) {
+            if (columnPercents != null) {
+                widths[col] = (int) (usableWidth * (columnPercents[col] / percentsTotal));
+            } else {
+                widths[col] = usableWidth / numColumns;
+            }
+        }
+    }
+
+    /**
+     * 计算每行第一个元素的序号
+     * 元素依次排列，遇到整行显示的标题元素时结束当前行，标题独占一行后重新从第一列开始排列
+     *
+     * @param rowStarts     输出每行第一个元素的序号，长度不小于cellCount
+     * @param numColumns
+     * @param cellFullSpans 各元素是否独占整行，为null时表示没有标题元素
+     * @param cellCount
+     * @return 行数
+     */
+    static int rowStarts(int[] rowStarts, int numColumns, boolean[] cellFullSpans,
+                         int cellCount) {
+        if (cellFullSpans == null) {
+            final int rowCount = (cellCount + numColumns - 1) / numColumns;
+            for (int row = 0; row < rowCount; row++) {
+                rowStarts[row] = row * numColumns;
+            }
+            return rowCount;
+        }
+
+        int rowCount = 0;
+        int col = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cellFullSpans[cell]) {
+                rowStarts[rowCount++] = cell;
+                col = 0;
+                continue;
+            }
+
+            if (col == 0) {
+                rowStarts[rowCount++] = cell;
+            }
+            col = (col + 1) % numColumns;
+        }
+        return rowCount;
+    }
+
+    /**
+     * 计算宫格几何信息
+     *
+     * @param columnWidths                   各列宽度
+     * @param rowStarts                      每行第一个元素的序号（可为复用数组，只读取前rowCount项）
+     * @param rowHeights                     各行高度（可为复用数组，只读取前rowCount项）
+     * @param rowCount                       行数
+     * @param cellFullSpans                  各元素是否独占整行，可为null
+     * @param cellCount                      元素总数
+     * @param horizontalSpace                水平间隔
+     * @param verticalSpace                  垂直间隔
+     * @param horizontalStartEndSpaceEnabled 水平首尾是否带间隔
+     * @param verticalStartEndSpaceEnabled   垂直首尾是否带间隔
+     * @return
+     */
+    static GridGeometry compute(int[] columnWidths, int[] rowStarts, int[] rowHeights,
+                                int rowCount, boolean[] cellFullSpans, int cellCount,
+                                int horizontalSpace, int verticalSpace,
+                                boolean horizontalStartEndSpaceEnabled,
+                                boolean verticalStartEndSpaceEnabled) {
+        final int numColumns = columnWidths.length;
+
+        int[] columnLefts = new int[numColumns];
+        int[] columnRights = new int[numColumns];
+        int left = horizontalStartEndSpaceEnabled ? horizontalSpace : 0;
+        for (int col = 0; col < numColumns; col++) {
+            columnLefts[col] = left;
+            columnRights[col] = left + columnWidths[col];
+            left = columnRights[col] + horizontalSpace;
+        }
+
+        int[] rowTops = new int[rowCount];
+        int[] rowBottoms = new int[rowCount];
+        int[] rowCellCounts = new int[rowCount];
+        boolean[] rowFullSpans = new boolean[rowCount];
+        int top = verticalStartEndSpaceEnabled ? verticalSpace : 0;
+        int maxRowCellCount = 0;
+        for (int row = 0; row < rowCount; row++) {
+            rowTops[row] = top;
+            rowBottoms[row] = top + rowHeights[row];
+            int next = row + 1 < rowCount ? rowStarts[row + 1] : cellCount;
+            rowCellCounts[row] = next - rowStarts[row];
+            rowFullSpans[row] = cellFullSpans != null && cellFullSpans[rowStarts[row]];
+            if (rowFullSpans[row]) {
+                maxRowCellCount = numColumns;
+            } else {
+                maxRowCellCount = Math.max(maxRowCellCount, rowCellCounts[row]);
+            }
+            top = rowBottoms[row] + verticalSpace;
+        }
+
+        int height = 0;
+        if (rowCount > 0) {
+            height = rowBottoms[rowCount - 1];
+            if (verticalStartEndSpaceEnabled) {
+                height += verticalSpace;
+            }
+        }
+
+        int maxRight = maxRowCellCount > 0 ? columnRights[maxRowCellCount - 1] : 0;
+
+        return new GridGeometry(numColumns, cellCount, columnLefts, columnRights, rowTops,
+                rowBottoms, Arrays.copyOf(rowStarts, rowCount), rowCellCounts, rowFullSpans, height, maxRight);
+    }
+
+    int rowCount() {
+        return rowTops.length;
+    }
+
+    /**
+     * 占用内存估算值（字节）
+     *
+     * @return
+     */
+    int sizeInBytes() {
+        final int rowCount = rowTops.length;
+        return 48 + arraySizeInBytes(numColumns) * 2 + arraySizeInBytes(rowCount) * 4
+                + 16 + ((rowCount + 7) & ~7);
+    }
+
+    /**
+     * int数组占用内存估算值（字节）
+     *
+     * @param length
+     * @return
+     */
+    static int arraySizeInBytes(int length) {
+        return 16 + length * 4;
+    }
+
+    /**
+     * 整行标题元素的宽度（所有列及列间隔）
+     *
+     * @param columnWidths    各列宽度
+     * @param horizontalSpace 水平间隔
+     * @return
+     */
+    static int fullSpanWidth(int[] columnWidths, int horizontalSpace) {
+        int width = (columnWidths.length - 1) * horizontalSpace;
+        for (int columnWidth : columnWidths) {
+            width += columnWidth;
+        }
+        return width;
+    }
+
+    /**
+     * 元素左边界
+     *
+     * @param row
+     * @param col 该元素在行内的序号
+     * @return
+     */
+    int cellLeft(int row, int col) {
+        return rowFullSpans[row] ? columnLefts[0] : columnLefts[col];
+    }
+
+    /**
+     * 元素右边界
+     *
+     * @param row
+     * @param col 该元素在行内的序号
+     * @return
+     */
+    int cellRight(int row, int col) {
+        return rowFullSpans[row] ? columnRights[numColumns - 1] : columnRights[col];
+    }
+
+    /**
+     * 元素所在行（二分查找，适用于各行高度不同的情况）
+     *
+     * @param cell
+     * @return
+     */
+    int rowOfCell(int cell) {
+        int low = 0;
+        int high = rowStarts.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (rowStarts[mid] <= cell) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 纵坐标所在行，落在间隔区域内返回{@link #INVALID_INDEX}
+     *
+     * @param y
+     * @return
+     */
+    int findRow(int y) {
+        return search(rowTops, rowBottoms, y);
+    }
+
+    /**
+     * 横坐标所在列，落在间隔区域内返回{@link #INVALID_INDEX}
+     *
+     * @param x
+     * @return
+     */
+    int findColumn(int x) {
+        return search(columnLefts, columnRights, x);
+    }
+
+    /**
+     * 坐标所在元素序号，落在间隔区域或空白区域返回{@link #INVALID_INDEX}
+     *
+     * @param x
+     * @param y
+     * @return
+     */
+    int findCell(int x, int y) {
+        int row = findRow(y);
+        if (row == INVALID_INDEX) {
+            return INVALID_INDEX;
+        }
+
+        if (rowFullSpans[row]) {
+            if (x < columnLefts[0] || x >= columnRights[numColumns - 1]) {
+                return INVALID_INDEX;
+            }
+            return rowStarts[row];
+        }
+
+        int col = findColumn(x);
+        if (col == INVALID_INDEX || col >= rowCellCounts[row]) {
+            return INVALID_INDEX;
+        }
+        return rowStarts[row] + col;
+    }
+
+    /**
+     * 底部在纵坐标y之下的第一行（即从y开始可见的第一行），不存在时返回行数
+     *
+     * @param y
+     * @return
+     */
+    int firstRowBelow(int y) {
+        int low = 0;
+        int high = rowBottoms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rowBottoms[mid] <= y) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 顶部在纵坐标y之上的最后一行（即到y为止可见的最后一行），不存在时返回-1
+     *
+     * @param y
+     * @return
+     */
+    int lastRowAbove(int y) {
+        int low = -1;
+        int high = rowTops.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (rowTops[mid] < y) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 在有序区间[starts[i], ends[i])中二分查找value所在区间
+     *
+     * @param starts
+     * @param ends
+     * @param value
+     * @return
+     */
+    private static int search(int[] starts, int[] ends, int value) {
+        int low = 0;
+        int high = starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (value < starts[mid]) {
+                high = mid - 1;
+            } else if (value >= ends[mid]) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return INVALID_INDEX;
+    }
+}
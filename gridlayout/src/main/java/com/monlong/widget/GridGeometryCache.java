@@ -0,0 +1,295 @@
+package com.monlong.widget;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @Descirption: 宫格几何信息全局缓存（LRU）
+ * 列表中大量配置相同（列数、列宽占比、间隔、首尾间隔）且宽度、行高一致的GridLayout
+ * 直接复用同一份不可变的几何信息，避免每个实例重复计算和分配
+ * @Author: monlong
+ * @Email: 826309156@qq.com
+ * @Date: 2026-10-19 16:05
+ * @Version: 1.0.0
+ */
+public final class GridGeometryCache {
+
+    /**
+     * 默认最多缓存的几何信息数量
+     */
+    private static final int DEFAULT_MAX_SIZE = 64;
+
+    private static final Object sLock = new Object();
+
+    /**
+     * 按访问顺序排列，最久未使用的在最前
+     */
+    private static final LinkedHashMap<Key, GridGeometry> sCache =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    private static int sMaxSize = DEFAULT_MAX_SIZE;
+    private static long sHitCount;
+    private static long sMissCount;
+    private static long sMemoryBytes;
+
+    private GridGeometryCache() {
+    }
+
+    /**
+     * 查找用的临时键，只引用调用方的数组，命中时不产生任何分配
+     */
+    private static final Key sProbeKey = new Key();
+
+    /**
+     * 获取几何信息，缓存中不存在时计算并加入缓存，参数含义同
+     * {@link GridGeometry#compute(int[], int[], int[], int, boolean[], int, int, int, boolean, boolean)}
+     * 传入的数组可为调用方复用的临时数组，命中时不产生任何分配，未命中时才复制
+     */
+    static GridGeometry obtain(int[] columnWidths, int[] rowStarts, int[] rowHeights,
+                               int rowCount, boolean[] cellFullSpans, int cellCount,
+                               int horizontalSpace, int verticalSpace,
+                               boolean horizontalStartEndSpaceEnabled,
+                               boolean verticalStartEndSpaceEnabled) {
+        final int flags = (horizontalStartEndSpaceEnabled ? 1 : 0)
+                | (verticalStartEndSpaceEnabled ? 2 : 0);
+        final int hashCode = Key.hash(columnWidths, rowStarts, rowHeights, rowCount,
+                cellFullSpans, cellCount, horizontalSpace, verticalSpace, flags);
+
+        GridGeometry geometry;
+        synchronized (sLock) {
+            if (sMaxSize > 0) {
+                sProbeKey.set(columnWidths, rowStarts, rowHeights, rowCount, cellFullSpans,
+                        true, cellCount, horizontalSpace, verticalSpace, flags, hashCode);
+                geometry = sCache.get(sProbeKey);
+                sProbeKey.clear();
+                if (geometry != null) {
+                    sHitCount++;
+                    return geometry;
+                }
+                sMissCount++;
+            }
+        }
+
+        geometry = GridGeometry.compute(columnWidths, rowStarts, rowHeights, rowCount,
+                cellFullSpans, cellCount, horizontalSpace, verticalSpace,
+                horizontalStartEndSpaceEnabled, verticalStartEndSpaceEnabled);
+
+        synchronized (sLock) {
+            if (sMaxSize > 0) {
+                // 未命中时才创建缓存键并复制调用方的临时数组，行起始序号和整行标志取自几何信息
+                Key key = new Key();
+                key.set(columnWidths.clone(), geometry.rowStarts,
+                        Arrays.copyOf(rowHeights, rowCount), rowCount, geometry.rowFullSpans,
+                        false, cellCount, horizontalSpace, verticalSpace, flags, hashCode);
+                if (sCache.put(key, geometry) == null) {
+                    sMemoryBytes += key.sizeInBytes() + geometry.sizeInBytes();
+                }
+                trimToSize(sMaxSize);
+            }
+        }
+        return geometry;
+    }
+
+    /**
+     * 移除最久未使用的缓存直到数量不超过maxSize
+     *
+     * @param maxSize
+     */
+    private static void trimToSize(int maxSize) {
+        Iterator<Map.Entry<Key, GridGeometry>> iterator = sCache.entrySet().iterator();
+        while (sCache.size() > maxSize && iterator.hasNext()) {
+            Map.Entry<Key, GridGeometry> eldest = iterator.next();
+            sMemoryBytes -= eldest.getKey().sizeInBytes() + eldest.getValue().sizeInBytes();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 设置最多缓存的几何信息数量，为0时关闭缓存
+     *
+     * @param maxSize
+     */
+    public static void setMaxSize(int maxSize) {
+        synchronized (sLock) {
+            sMaxSize = Math.max(0, maxSize);
+            trimToSize(sMaxSize);
+        }
+    }
+
+    public static int getMaxSize() {
+        synchronized (sLock) {
+            return sMaxSize;
+        }
+    }
+
+    /**
+     * 当前缓存的几何信息数量
+     *
+     * @return
+     */
+    public static int size() {
+        synchronized (sLock) {
+            return sCache.size();
+        }
+    }
+
+    public static long getHitCount() {
+        synchronized (sLock) {
+            return sHitCount;
+        }
+    }
+
+    public static long getMissCount() {
+        synchronized (sLock) {
+            return sMissCount;
+        }
+    }
+
+    /**
+     * 命中率
+     *
+     * @return 0~1，尚未有请求时为0
+     */
+    public static float getHitRate() {
+        synchronized (sLock) {
+            long total = sHitCount + sMissCount;
+            return total > 0 ? (float) sHitCount / total : 0f;
+        }
+    }
+
+    /**
+     * 缓存占用内存估算值（字节）
+     *
+     * @return
+     */
+    public static long getMemoryBytes() {
+        synchronized (sLock) {
+            return sMemoryBytes;
+        }
+    }
+
+    /**
+     * 清空缓存及统计信息
+     */
+    public static void clear() {
+        synchronized (sLock) {
+            sCache.clear();
+            sMemoryBytes = 0;
+            sHitCount = 0;
+            sMissCount = 0;
+        }
+    }
+
+    /**
+     * 缓存键，由列宽、间隔配置、行结构和行高组成，直接引用对应数组（只比较前mRowCount行），不复制
+     */
+    private static final class Key {
+
+        private int[] mColumnWidths;
+        private int[] mRowStarts;
+        private int[] mRowHeights;
+        private int mRowCount;
+
+        /**
+         * 整行标志，mFullSpansByCell为true时按元素序号索引，否则按行索引
+         */
+        private boolean[] mFullSpans;
+        private boolean mFullSpansByCell;
+
+        private int mCellCount;
+        private int mHorizontalSpace;
+        private int mVerticalSpace;
+        private int mFlags;
+        private int mHashCode;
+
+        void set(int[] columnWidths, int[] rowStarts, int[] rowHeights, int rowCount,
+                 boolean[] fullSpans, boolean fullSpansByCell, int cellCount, int horizontalSpace, int verticalSpace,
+                 int flags, int hashCode) {
+            mColumnWidths = columnWidths;
+            mRowStarts = rowStarts;
+            mRowHeights = rowHeights;
+            mRowCount = rowCount;
+            mFullSpans = fullSpans;
+            mFullSpansByCell = fullSpansByCell;
+            mCellCount = cellCount;
+            mHorizontalSpace = horizontalSpace;
+            mVerticalSpace = verticalSpace;
+            mFlags = flags;
+            mHashCode = hashCode;
+        }
+
+        void clear() {
+            mColumnWidths = null;
+            mRowStarts = null;
+            mRowHeights = null;
+            mFullSpans = null;
+        }
+
+        static int hash(int[] columnWidths, int[] rowStarts, int[] rowHeights, int rowCount,
+                        boolean[] cellFullSpans, int cellCount, int horizontalSpace,
+                        int verticalSpace, int flags) {
+            int result = horizontalSpace;
+            result = 31 * result + verticalSpace;
+            result = 31 * result + flags;
+            result = 31 * result + cellCount;
+            result = 31 * result + Arrays.hashCode(columnWidths);
+            for (int row = 0; row < rowCount; row++) {
+                result = 31 * result + rowStarts[row];
+                result = 31 * result + rowHeights[row];
+                result = 31 * result
+                        + (cellFullSpans != null && cellFullSpans[rowStarts[row]] ? 1 : 0);
+            }
+            return result;
+        }
+
+        private boolean isRowFullSpan(int row) {
+            if (mFullSpans == null) {
+                return false;
+            }
+            return mFullSpans[mFullSpansByCell ? mRowStarts[row] : row];
+        }
+
+        /**
+         * 占用内存估算值（字节），行起始序号和整行标志与几何信息共用
+         *
+         * @return
+         */
+        int sizeInBytes() {
+            return 48 + GridGeometry.arraySizeInBytes(mColumnWidths.length)
+                    + GridGeometry.arraySizeInBytes(mRowHeights.length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            if (mHashCode != key.mHashCode || mCellCount != key.mCellCount
+                    || mRowCount != key.mRowCount
+                    || mHorizontalSpace != key.mHorizontalSpace
+                    || mVerticalSpace != key.mVerticalSpace || mFlags != key.mFlags
+                    || !Arrays.equals(mColumnWidths, key.mColumnWidths)) {
+                return false;
+            }
+            for (int row = 0; row < mRowCount; row++) {
+                if (mRowStarts[row] != key.mRowStarts[row]
+                        || mRowHeights[row] != key.mRowHeights[row]
+                        || isRowFullSpan(row) != key.isRowFullSpan(row)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.monlong.widget;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewGroupOverlay;
+import android.view.ViewPropertyAnimator;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * @Descirption: 宫格元素增删移动动画
+ * 数据变化前记录各元素位置，变化后根据新的宫格几何信息一次性算出起止位置，
+ * 只通过translationX/Y和alpha属性执行动画（可由RenderThread处理），动画过程中不会触发measure/layout，
+ * 间隔区域直接按最终几何信息绘制
+ * @Author: monlong
+ * @Email: 826309156@qq.com
+ * @Date: 2026-10-19 17:10
+ * @Version: 1.0.0
+ */
+final class GridItemAnimator {
+
+    /**
+     * 默认动画时长（毫秒）
+     */
+    static final long DEFAULT_DURATION = 250;
+
+    private final GridLayout mHost;
+
+    private long mDuration = DEFAULT_DURATION;
+
+    /**
+     * 数据变化前各元素的位置（left, top），key为元素ID
+     */
+    private final HashMap<Long, int[]> mPreLayoutPositions = new HashMap<>();
+
+    /**
+     * 数据变化前的元素视图，用于执行移除动画，key为元素ID
+     */
+    private final HashMap<Long, View> mPreLayoutViews = new HashMap<>();
+
+    /**
+     * 是否有等待布局完成后执行的动画
+     */
+    private boolean mPending;
+
+    GridItemAnimator(GridLayout host) {
+        mHost = host;
+    }
+
+    void setDuration(long duration) {
+        mDuration = duration;
+    }
+
+    /**
+     * 数据变化前（childView被移除前）记录当前各元素位置
+     */
+    void recordPreLayout() {
+        /**
+         * 上一次记录后尚未重新布局（如同一帧内多次数据变化）时保留原记录，
+         * 只补充记录原记录中没有且已完成布局的元素，尚未布局的childView位置无效，按新增元素处理
+         */
+        final boolean merge = mPending || mHost.isLayoutRequested();
+        if (!merge) {
+            mPreLayoutPositions.clear();
+            mPreLayoutViews.clear();
+        }
+
+        final int count = mHost.getChildCount();
+        for (int i = 0; i < count; i++) {
+            View child = mHost.getChildAt(i);
+            if (child.getVisibility() == View.GONE) {
+                continue;
+            }
+
+            long itemId = mHost.getChildItemId(i);
+            if (merge && (mPreLayoutPositions.containsKey(itemId) || child.isLayoutRequested())) {
+                continue;
+            }
+
+            // 上一次动画尚未结束时从当前显示位置开始
+            child.animate().cancel();
+            mPreLayoutPositions.put(itemId, new int[]{
+                    child.getLeft() + (int) child.getTranslationX(),
+                    child.getTop() + (int) child.getTranslationY()});
+            mPreLayoutViews.put(itemId, child);
+        }
+        mPending = !mPreLayoutPositions.isEmpty();
+    }
+
+    /**
+     * 布局完成后根据新旧位置执行动画
+     */
+    void runPendingAnimations() {
+        if (!mPending) {
+            return;
+        }
+        mPending = false;
+
+        final int count = mHost.getChildCount();
+        for (int i = 0; i < count; i++) {
+            View child = mHost.getChildAt(i);
+            if (child.getVisibility() == View.GONE) {
+                continue;
+            }
+
+            long itemId = mHost.getChildItemId(i);
+            int[] from = mPreLayoutPositions.remove(itemId);
+            mPreLayoutViews.remove(itemId);
+            if (from == null) {
+                animateAdd(child);
+            } else {
+                animateMove(child, from[0] - child.getLeft(), from[1] - child.getTop());
+            }
+        }
+
+        // 新数据中已不存在的元素执行移除动画（尚未添加到布局中的元素不处理）
+        if (!mPreLayoutViews.isEmpty() && Build.VERSION.SDK_INT >= Build.VERSION_CODES
+                .JELLY_BEAN_MR2) {
+            HashSet<Long> itemIds = mHost.getAdapterItemIds();
+            for (Long itemId : mPreLayoutViews.keySet()) {
+                if (!itemIds.contains(itemId)) {
+                    animateRemove(mPreLayoutViews.get(itemId));
+                }
+            }
+        }
+
+        mPreLayoutPositions.clear();
+        mPreLayoutViews.clear();
+    }
+
+    /**
+     * 取消等待执行的动画并释放记录的视图
+     */
+    void cancel() {
+        mPending = false;
+        mPreLayoutPositions.clear();
+        mPreLayoutViews.clear();
+    }
+
+    private void animateAdd(View child) {
+        child.setAlpha(0f);
+        withLayer(child.animate().alpha(1f).setDuration(mDuration));
+    }
+
+    private void animateMove(View child, int dx, int dy) {
+        if (dx == 0 && dy == 0) {
+            return;
+        }
+        child.setTranslationX(dx);
+        child.setTranslationY(dy);
+        // 平移动画不需要离屏硬件层，大量元素同时移动时避免一次性分配大量层
+        child.animate().translationX(0f).translationY(0f).setDuration(mDuration);
+    }
+
+    /**
+     * 已移除的视图放入Overlay中淡出，不参与布局
+     *
+     * @param view
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private void animateRemove(final View view) {
+        final ViewGroupOverlay overlay = mHost.getOverlay();
+        overlay.add(view);
+        withLayer(view.animate().alpha(0f).setDuration(mDuration).withEndAction(new Runnable() {
+            @Override
+            public void run() {
+                overlay.remove(view);
+                view.setAlpha(1f);
+            }
+        }));
+    }
+
+    /**
+     * 透明度动画使用硬件层，避免每帧重新绘制元素内容
+     *
+     * @param animator
+     */
+    private static void withLayer(ViewPropertyAnimator animator) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            animator.withLayer();
+        }
+    }
+}
@@ -2,18 +2,32 @@ package com.monlong.widget;
 
 import android.content.Context;
 import android.content.res.TypedArray;
-import android.database.DataSetObserver;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.support.v4.view.AccessibilityDelegateCompat;
+import android.support.v4.view.ViewCompat;
+import android.util.SparseBooleanArray;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.widget.BaseAdapter;
 import android.widget.ListAdapter;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
 /**
  * @Descirption: 不具有滑动特性的宫格视图布局（根据指定列数依次排列）
  * @Author: monlong
@@ -26,6 +40,36 @@ public class GridLayout extends ViewGroup {
     private static final String TAG = "GridLayout";
     private static final boolean DEBUG = false;
 
+    /**
+     * 坐标未落在任何元素上
+     */
+    public static final int INVALID_POSITION = -1;
+
+    /**
+     * 外层滚动容器处于静止状态
+     */
+    public static final int SCROLL_STATE_IDLE = 0;
+
+    /**
+     * 外层滚动容器正在滑动
+     */
+    public static final int SCROLL_STATE_SCROLLING = 1;
+
+    /**
+     * 外层滚动容器正在快速滑动
+     */
+    public static final int SCROLL_STATE_FLING = 2;
+
+    /**
+     * 默认每帧空闲预取可用的最大时长（4ms）
+     */
+    private static final long DEFAULT_PREFETCH_BUDGET_NANOS = 4000000L;
+
+    /**
+     * 开启预取时默认同步创建的childView数量（约为首屏可见的元素数量）
+     */
+    private static final int DEFAULT_PREFETCH_INITIAL_COUNT = 12;
+
     /**
      * 每行中所排列childView数量
      */
@@ -76,11 +120,6 @@ public class GridLayout extends ViewGroup {
      */
     private int mHorizontalSpaceColor;
 
-    /**
-     * 最大宽度
-     */
-    private int mHorizontalMaxWidth;
-
     /**
      * 垂直方向绘制颜色画笔
      */
@@ -96,7 +135,170 @@ public class GridLayout extends ViewGroup {
      */
     private ListAdapter mAdapter;
 
-    private AdapterDataSetObserver mDataSetObserver;
+    /**
+     * 空闲预取数量，为0时关闭预取，所有childView在数据变化时同步创建
+     */
+    private int mPrefetchDepth;
+
+    /**
+     * 开启预取时数据变化后同步创建的childView数量
+     */
+    private int mPrefetchInitialCount = DEFAULT_PREFETCH_INITIAL_COUNT;
+
+    /**
+     * 每帧空闲预取可用的最大时长（纳秒）
+     */
+    private long mPrefetchBudgetNanos = DEFAULT_PREFETCH_BUDGET_NANOS;
+
+    /**
+     * 空闲预取器（仅API 16及以上可用）
+     */
+    private GridPrefetcher mPrefetcher;
+
+    /**
+     * 最近一次测量得到的宫格几何信息
+     */
+    private GridGeometry mGeometry;
+
+    /**
+     * 参与排列的（非GONE）childView下标，与mGeometry中的元素序号一一对应
+     */
+    private int[] mCellChildIndices = new int[0];
+
+    /**
+     * 各元素是否为独占整行的标题元素，与mCellChildIndices一一对应
+     */
+    private boolean[] mCellFullSpans = new boolean[0];
+
+    /**
+     * 测量时复用的各列宽度、每行起始元素序号和行高，几何信息缓存命中时不再分配
+     */
+    private int[] mScratchColumnWidths = new int[0];
+    private int[] mScratchRowStarts = new int[0];
+    private int[] mScratchRowHeights = new int[0];
+
+    /**
+     * 作为整行标题显示的适配器视图类型
+     */
+    private final SparseBooleanArray mHeaderViewTypes = new SparseBooleanArray();
+
+    /**
+     * 是否由GridLayout统一分发点击事件（不再为每个childView设置点击监听）
+     */
+    private boolean mItemTouchDispatchEnabled;
+
+    private int mTouchSlop;
+
+    /**
+     * 按下时所在元素位置
+     */
+    private int mMotionPosition = INVALID_POSITION;
+    private float mMotionX;
+    private float mMotionY;
+
+    /**
+     * 延迟设置按下状态，避免在外层滑动时元素闪烁
+     */
+    private final Runnable mPendingCheckForTap = new Runnable() {
+        @Override
+        public void run() {
+            setItemPressed(mMotionPosition, true);
+        }
+    };
+
+    /**
+     * 抬起后延迟取消按下状态的元素位置
+     */
+    private int mUnpressPosition = INVALID_POSITION;
+
+    private final Runnable mPendingUnpress = new Runnable() {
+        @Override
+        public void run() {
+            if (mUnpressPosition != INVALID_POSITION) {
+                setItemPressed(mUnpressPosition, false);
+                mUnpressPosition = INVALID_POSITION;
+            }
+        }
+    };
+
+    /**
+     * 统一分发模式下所有childView共用的点击监听
+     * 触摸事件已由GridLayout拦截，只有无障碍服务、键盘和方向键触发的点击会到达这里
+     */
+    private final OnClickListener mDispatchedItemClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            int position = indexOfChild(v);
+            if (position >= 0 && mOnItemClickListener != null) {
+                mOnItemClickListener.onItemClick(v, position);
+            }
+        }
+    };
+
+    /**
+     * 可见范围之外额外预加载的行数
+     */
+    private int mVisibleRangeExtraRows;
+
+    private GridVisibleRangeTracker mVisibleRangeTracker;
+    private OnVisibleRangeChangedListener mOnVisibleRangeChangedListener;
+
+    /**
+     * 从保存状态中恢复的元素尺寸，只用于首次布局，使首帧宫格高度与保存时一致
+     * 注意：childView仍会以EXACTLY模式执行完整的onMeasure，并不能减少首帧的测量耗时
+     */
+    private SavedState mRestoredState;
+
+    /**
+     * 元素ID对应mRestoredState中的下标
+     */
+    private HashMap<Long, Integer> mRestoredIndices;
+
+    /**
+     * 元素增删移动动画，为null时不执行动画
+     */
+    private GridItemAnimator mItemAnimator;
+
+    /**
+     * 各childView绑定时对应的元素ID（适配器ID不稳定时为位置），用于数据变化前后匹配同一元素
+     */
+    private long[] mChildItemIds = new long[0];
+
+    /**
+     * 适配器监听关系，只在添加到窗口期间注册
+     */
+    private final GridAdapterConnection mAdapterConnection = new GridAdapterConnection(
+            new GridAdapterConnection.Callback() {
+                @Override
+                public void onDataChanged() {
+                    notifyDataChanged();
+                }
+
+                @Override
+                public void onItemChanged(int position, Object payload) {
+                    notifyItemChanged(position, payload);
+                }
+            });
+
+    /**
+     * 绘制模式适配器，不为null时不创建childView，元素由GridLayout直接绘制
+     */
+    private DrawnCellAdapter mDrawnCellAdapter;
+
+    private DrawnCellRenderer mCellRenderer;
+    private DrawnCellAccessibilityHelper mCellAccessibilityHelper;
+
+    /**
+     * 绘制模式下处于按下状态的元素位置
+     */
+    private int mPressedCellPosition = INVALID_POSITION;
+
+    private final Rect mTempRect = new Rect();
+
+    /**
+     * 脱离窗口期间未监听适配器，可能错过了数据变化，重新添加到窗口时需要重新同步
+     */
+    private boolean mDataChangeMissed;
     private OnItemClickListener mOnItemClickListener;
 
     public GridLayout(Context context) {
@@ -110,6 +312,7 @@ public class GridLayout extends ViewGroup {
     public GridLayout(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
         obtainStyledAttributes(context, attrs);
+        mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
     }
 
     /**
@@ -131,6 +334,13 @@ public class GridLayout extends ViewGroup {
                 .GridLayout_horizontalStartEndSpace, false);
         mVerticalStartEndSpaceEnabled = a.getBoolean(R.styleable
                 .GridLayout_verticalStartEndSpace, false);
+        mPrefetchDepth = a.getInteger(R.styleable.GridLayout_prefetchDepth, 0);
+        mPrefetchInitialCount = a.getInteger(R.styleable.GridLayout_prefetchInitialCount,
+                DEFAULT_PREFETCH_INITIAL_COUNT);
+        mItemTouchDispatchEnabled = a.getBoolean(R.styleable.GridLayout_itemTouchDispatch, false);
+        if (a.getBoolean(R.styleable.GridLayout_itemAnimation, false)) {
+            mItemAnimator = new GridItemAnimator(this);
+        }
         String columnsPercents = a.getString(R.styleable.GridLayout_columnPercent);
         a.recycle();
 
@@ -174,6 +384,10 @@ public class GridLayout extends ViewGroup {
 
         final int childCount = getChildCount();
 
+        // 绘制模式下没有childView，元素数量即适配器元素数量
+        final boolean drawnCells = mDrawnCellAdapter != null;
+        final int itemCount = drawnCells ? mDrawnCellAdapter.getCount() : childCount;
+
         if (DEBUG) {
             Log.e(TAG, "gridlayout child count " + childCount);
         }
@@ -181,7 +395,8 @@ public class GridLayout extends ViewGroup {
         /**
          * 当不存在子视图时，直接设置控件宽高为0
          */
-        if (childCount <= 0) {
+        if (itemCount <= 0) {
+            mGeometry = null;
             setMeasuredDimension(0, 0);
             return;
         }
@@ -201,55 +416,78 @@ public class GridLayout extends ViewGroup {
 
         // 去除padding大小
         widthSize = widthSize - getPaddingLeft() - getPaddingRight();
-        int childHeight = 0;
-        // 计算单个元素宽度
-        int childWidth = (widthSize - horizontalTotalSpacing) / mNumColumns;
 
-        if (DEBUG) {
-            Log.e(TAG, "gridlayout single child width " + childWidth);
+        // 计算各列宽度，UNSPECIFIED模式下不考虑宽度占比
+        float[] columnPercents = widthMode != MeasureSpec.UNSPECIFIED ? mColumnPercents : null;
+        if (mScratchColumnWidths.length != mNumColumns) {
+            mScratchColumnWidths = new int[mNumColumns];
         }
+        final int[] columnWidths = mScratchColumnWidths;
+        GridGeometry.columnWidths(columnWidths, columnPercents, mColumnPercentsTotal,
+                widthSize - horizontalTotalSpacing);
 
-        // 子元素为空或隐藏数量统计，用于计算高度
-        int childGoneCount = 0;
-        int childVisibleCount = 0;
+        if (DEBUG) {
+            Log.e(TAG, "gridlayout single child width " + columnWidths[0]);
+        }
 
-        for (int i = 0; i < childCount; i++) {
-            final View child = getChildAt(i);
-            if (child.getVisibility() == View.GONE) {
-                childGoneCount++;
-                continue;
+        // 统计参与排列的子元素，为空或隐藏的子元素不占位置
+        if (mCellChildIndices.length < itemCount) {
+            mCellChildIndices = new int[itemCount];
+        }
+        if (mCellFullSpans.length < itemCount) {
+            mCellFullSpans = new boolean[itemCount];
+        }
+        if (mScratchRowStarts.length < itemCount) {
+            mScratchRowStarts = new int[itemCount];
+            mScratchRowHeights = new int[itemCount];
+        }
+        int cellCount = 0;
+        boolean hasHeader = false;
+        for (int i = 0; i < itemCount; i++) {
+            if (drawnCells || getChildAt(i).getVisibility() != View.GONE) {
+                mCellFullSpans[cellCount] = isHeaderPosition(i);
+                hasHeader |= mCellFullSpans[cellCount];
+                mCellChildIndices[cellCount++] = i;
             }
+        }
 
-            if (widthMode != MeasureSpec.UNSPECIFIED && mColumnPercents != null) {
-                float percent = mColumnPercents[childVisibleCount % mNumColumns];
-                childWidth = (int) ((widthSize - horizontalTotalSpacing)
-                        * (percent / mColumnPercentsTotal));
+        // 标题元素独占一行，之后的元素重新从第一列开始排列
+        boolean[] cellFullSpans = hasHeader ? mCellFullSpans : null;
+        final int[] rowStarts = mScratchRowStarts;
+        final int rowCount = GridGeometry.rowStarts(rowStarts, mNumColumns, cellFullSpans,
+                cellCount);
+        int fullSpanWidth = GridGeometry.fullSpanWidth(columnWidths, mHorizontalSpace);
+
+        // 每行高度取该行子元素中的最大高度
+        final int[] rowHeights = mScratchRowHeights;
+        Arrays.fill(rowHeights, 0, rowCount, 0);
+        int row = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            while (row + 1 < rowCount && rowStarts[row + 1] <= cell) {
+                row++;
             }
+            final int col = cell - rowStarts[row];
+            final int cellWidth = cellFullSpans != null && cellFullSpans[cell]
+                    ? fullSpanWidth : columnWidths[col];
 
-            LayoutParams p = child.getLayoutParams();
-            if (p == null) {
-                p = generateDefaultLayoutParams();
-                child.setLayoutParams(p);
+            if (drawnCells) {
+                rowHeights[row] = Math.max(rowHeights[row],
+                        mCellRenderer.measure(cell, cellWidth));
+                continue;
             }
 
-            /**
-             * 构建子元素测量规格，因为宽度需要手动指定，构建时传递mode时指定为EXACTLY，高度无所谓
-             */
-            int childWidthSpec = getChildMeasureSpec(
-                    MeasureSpec
-                            .makeMeasureSpec(childWidth, MeasureSpec.EXACTLY),
-                    0, p.width);
-
-            int childHeightSpec = getChildMeasureSpec(
-                    MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED), 0,
-                    p.height);
-
-            child.measure(childWidthSpec, childHeightSpec);
-            childHeight = child.getMeasuredHeight();
-
-            childVisibleCount++;
+            final View child = getChildAt(mCellChildIndices[cell]);
+            if (!measureRestoredCell(child, mCellChildIndices[cell], cellWidth)) {
+                measureCell(child, cellWidth);
+            }
+            rowHeights[row] = Math.max(rowHeights[row], child.getMeasuredHeight());
         }
 
+        // 配置、宽度和行高均相同的宫格直接复用缓存的几何信息
+        mGeometry = GridGeometryCache.obtain(columnWidths, rowStarts, rowHeights, rowCount,
+                cellFullSpans, cellCount, mHorizontalSpace, mVerticalSpace,
+                mHorizontalStartEndSpaceEnabled, mVerticalStartEndSpaceEnabled);
+
         /**
          * 根据当前控件高度模式、子视图排列行数和子视图高度计算控件高度 测量模式：
          * EXACTLY，表示指定确定的值，不需要计算
@@ -258,28 +496,9 @@ public class GridLayout extends ViewGroup {
          */
         if (heightMode == MeasureSpec.AT_MOST
                 || heightMode == MeasureSpec.UNSPECIFIED) {
-            int ourSize = getPaddingTop() + getPaddingBottom();
-            if (mVerticalStartEndSpaceEnabled) {
-                ourSize += mVerticalSpace;
-            }
-
-            final int numColumns = mNumColumns;
-            final int count = childCount - childGoneCount;
-
-            for (int i = 0; i < count; i += numColumns) {
-                ourSize += childHeight;
-                if (count - i <= numColumns) {
-                    if (mVerticalStartEndSpaceEnabled) {
-                        ourSize += mVerticalSpace;
-                    }
-                } else {
-                    ourSize += mVerticalSpace;
-                }
-
-                if (heightMode == MeasureSpec.AT_MOST && ourSize >= heightSize) {
-                    ourSize = heightSize;
-                    break;
-                }
+            int ourSize = getPaddingTop() + getPaddingBottom() + mGeometry.height;
+            if (heightMode == MeasureSpec.AT_MOST && ourSize >= heightSize) {
+                ourSize = heightSize;
             }
             heightSize = ourSize;
         }
@@ -292,6 +511,61 @@ public class GridLayout extends ViewGroup {
         setMeasuredDimension(widthSize, heightSize);
     }
 
+    /**
+     * 测量单个子元素
+     *
+     * @param child
+     * @param cellWidth 元素所占宽度
+     */
+    private void measureCell(View child, int cellWidth) {
+        LayoutParams p = child.getLayoutParams();
+        if (p == null) {
+            p = generateDefaultLayoutParams();
+            child.setLayoutParams(p);
+        }
+
+        /**
+         * 构建子元素测量规格，因为宽度需要手动指定，构建时传递mode时指定为EXACTLY，高度无所谓
+         */
+        int childWidthSpec = getChildMeasureSpec(
+                MeasureSpec
+                        .makeMeasureSpec(cellWidth, MeasureSpec.EXACTLY),
+                0, p.width);
+
+        int childHeightSpec = getChildMeasureSpec(
+                MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED), 0,
+                p.height);
+
+        child.measure(childWidthSpec, childHeightSpec);
+    }
+
+    /**
+     * 使用保存状态中恢复的尺寸以EXACTLY模式测量子元素
+     * 只有元素ID相同且所占宽度一致时才使用，否则返回false按正常流程测量
+     *
+     * @param child
+     * @param position
+     * @param cellWidth
+     * @return
+     */
+    private boolean measureRestoredCell(View child, int position, int cellWidth) {
+        if (mRestoredIndices == null || mAdapter == null || position >= mAdapter.getCount()) {
+            return false;
+        }
+
+        Integer index = mRestoredIndices.get(mAdapter.getItemId(position));
+        if (index == null || mRestoredState.cellWidths[index] != cellWidth) {
+            return false;
+        }
+
+        child.measure(
+                MeasureSpec.makeMeasureSpec(mRestoredState.measuredWidths[index],
+                        MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(mRestoredState.measuredHeights[index],
+                        MeasureSpec.EXACTLY));
+        return true;
+    }
+
     /**
      * 水平方向总间隔
      *
@@ -309,46 +583,59 @@ public class GridLayout extends ViewGroup {
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        final GridGeometry geometry = mGeometry;
+        if (geometry == null) {
+            return;
+        }
+
         final int leftPadding = getPaddingLeft();
         final int topPadding = getPaddingTop();
 
-        int childIndex = 0;
-        int columnWidth = 0;
-        final int count = getChildCount();
-        for (int i = 0; i < count; i++) {
-            View child = getChildAt(i);
-            if (child.getVisibility() == View.GONE) {
-                continue;
-            }
-
-            if (childIndex % mNumColumns == 0) {
-                columnWidth = 0;
+        /**
+         * 子元素位置直接取自测量时计算好的各列左边界和各行顶部边界
+         * 绘制模式下没有childView需要布局
+         */
+        final int rowCount = mDrawnCellAdapter == null ? geometry.rowCount() : 0;
+        for (int row = 0; row < rowCount; row++) {
+            final int top = geometry.rowTops[row] + topPadding;
+            final int start = geometry.rowStarts[row];
+            for (int col = 0; col < geometry.rowCellCounts[row]; col++) {
+                View child = getChildAt(mCellChildIndices[start + col]);
+                int left = geometry.cellLeft(row, col) + leftPadding;
+                child.layout(left, top, left + child.getMeasuredWidth(),
+                        top + child.getMeasuredHeight());
             }
+        }
 
-            int childWidth = child.getMeasuredWidth();
-            int childHeight = child.getMeasuredHeight();
+        /**
+         * 恢复的尺寸只用于首次布局，之后无论是否使用都丢弃
+         * 内容与恢复尺寸不一致的childView请求重新布局时即按实际内容正常测量，不再对所有元素重新测量
+         */
+        mRestoredState = null;
+        mRestoredIndices = null;
 
-            /**
-             * 计算当前视图所处第几行第几列
-             * 行 ：index / 列数
-             * 列 ：index % 列数
-             */
-            int col = childIndex % mNumColumns;
-            int row = childIndex / mNumColumns;
-            int left = columnWidth + horizontalLeftSpacing(col) + leftPadding;
-            int top = row * childHeight + verticalTopSpacing(row) + topPadding;
-            int right = left + childWidth;
-            int bottom = top + childHeight;
+        // 所有元素已按新的几何信息布局完成，从旧位置开始执行动画
+        if (mItemAnimator != null) {
+            mItemAnimator.runPendingAnimations();
+        }
 
-            child.layout(left, top, right, bottom);
-            childIndex++;
-            columnWidth += childWidth;
+        // 布局变化后可见范围可能随之变化
+        if (mVisibleRangeTracker != null) {
+            mVisibleRangeTracker.update();
         }
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        if (mGeometry == null) {
+            return;
+        }
+
+        if (mDrawnCellAdapter != null) {
+            drawCells(canvas);
+        }
+
         if (mHorizontalSpace > 0) {
             drawHorizontalSpaceColor(canvas);
         }
@@ -358,36 +645,64 @@ public class GridLayout extends ViewGroup {
         }
     }
 
+    /**
+     * 绘制模式下绘制元素，只绘制与当前可绘制区域相交的行
+     *
+     * @param canvas
+     */
+    private void drawCells(Canvas canvas) {
+        final GridGeometry geometry = mGeometry;
+        final int leftPadding = getPaddingLeft();
+        final int topPadding = getPaddingTop();
+
+        canvas.getClipBounds(mTempRect);
+        int firstRow = geometry.firstRowBelow(mTempRect.top - topPadding);
+        int lastRow = geometry.lastRowAbove(mTempRect.bottom - topPadding);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            final int top = geometry.rowTops[row] + topPadding;
+            final int bottom = geometry.rowBottoms[row] + topPadding;
+            final int start = geometry.rowStarts[row];
+            for (int col = 0; col < geometry.rowCellCounts[row]; col++) {
+                final int position = start + col;
+                mCellRenderer.draw(canvas, position,
+                        geometry.cellLeft(row, col) + leftPadding, top,
+                        geometry.cellRight(row, col) + leftPadding, bottom,
+                        position == mPressedCellPosition);
+            }
+        }
+    }
+
     /**
      * 绘制水平方向间隔区域颜色
      *
      * @param canvas
      */
     private void drawHorizontalSpaceColor(Canvas canvas) {
-        int childIndex = 0;
-        int columnWidth = 0;
-        final int count = getChildCount();
-        for (int i = 0; i < count; i++) {
-            final View child = getChildAt(i);
-            if (child != null && child.getVisibility() != GONE) {
-
-                if (childIndex % mNumColumns == 0) {
-                    columnWidth = 0;
+        final GridGeometry geometry = mGeometry;
+        final int rowCount = geometry.rowCount();
+        for (int row = 0; row < rowCount; row++) {
+            int ctop = geometry.rowTops[row];
+            int cbottom = geometry.rowBottoms[row];
+
+            // 标题行只在首尾带间隔时绘制左右两侧
+            if (geometry.rowFullSpans[row]) {
+                if (mHorizontalStartEndSpaceEnabled) {
+                    int cleft = geometry.cellLeft(row, 0);
+                    int cright = geometry.cellRight(row, 0);
+                    canvas.drawRect(cleft - mHorizontalSpace, ctop, cleft, cbottom,
+                            mHorizontalPaint);
+                    canvas.drawRect(cright, ctop, cright + mHorizontalSpace, cbottom,
+                            mHorizontalPaint);
                 }
+                continue;
+            }
 
-                int childWidth = child.getMeasuredWidth();
-                int childHeight = child.getMeasuredHeight();
-
-                int col = childIndex % mNumColumns;
-                int row = childIndex / mNumColumns;
-                int cleft = columnWidth + horizontalLeftSpacing(col);
-                int ctop = row * childHeight + verticalTopSpacing(row);
-                int cright = cleft + childWidth;
-                int cbottom = ctop + childHeight;
-
-                columnWidth += childWidth;
+            for (int col = 0; col < geometry.rowCellCounts[row]; col++) {
+                int cleft = geometry.columnLefts[col];
+                int cright = geometry.columnRights[col];
 
-                // 为第一行子元素需判断是否绘制垂直顶部的间隔区域
+                // 为每行第一个元素需判断是否绘制左边的间隔区域
                 boolean headerSpaceEnabled;
                 if (col == 0) {
                     headerSpaceEnabled = mHorizontalStartEndSpaceEnabled;
@@ -403,19 +718,18 @@ public class GridLayout extends ViewGroup {
 
                 // 有两种情况需要考虑是否绘制元素右边填充颜色
                 // 1、当元素处于每一行最后一个元素
-                // 2、当元素为布局最后一个元素
+                // 2、当元素为未排满的一行中最后一个元素（布局最后一个元素或标题前的元素）
 
-                boolean isLastColumn = col == mNumColumns - 1;
-                boolean isLastChild = i == count - 1;
+                boolean isLastColumn = col == geometry.numColumns - 1;
+                boolean isLastChild = col == geometry.rowCellCounts[row] - 1;
 
                 if (!isLastColumn && !isLastChild) {
-                    childIndex++;
                     continue;
                 }
 
                 boolean horizontalSpaceEnabled = false;
 
-                // 为最后子元素时表示需要绘制右边间隔区域
+                // 为未排满一行的最后子元素时表示需要绘制右边间隔区域
                 if (isLastChild) {
                     horizontalSpaceEnabled = true;
                 }
@@ -430,10 +744,6 @@ public class GridLayout extends ViewGroup {
                     canvas.drawRect(cright, ctop, cright + mHorizontalSpace, cbottom,
                             mHorizontalPaint);
                 }
-
-                // 当前横向宽度最大值
-                mHorizontalMaxWidth = Math.max(mHorizontalMaxWidth, cright);
-                childIndex++;
             }
         }
     }
@@ -444,134 +754,561 @@ public class GridLayout extends ViewGroup {
      * @param canvas
      */
     private void drawVerticalSpaceColor(Canvas canvas) {
-        int childIndex = 0;
-        int columnWidth = 0;
-        final int count = getChildCount();
-        for (int i = 0; i < count; i++) {
-            final View child = getChildAt(i);
-            if (child != null && child.getVisibility() != GONE) {
-
-                if (childIndex % mNumColumns == 0) {
-                    columnWidth = 0;
-                }
-
-                int childWidth = child.getMeasuredWidth();
-                int childHeight = child.getMeasuredHeight();
-
-                int col = childIndex % mNumColumns;
-                int row = childIndex / mNumColumns;
-                int cleft = columnWidth + horizontalLeftSpacing(col);
-                int ctop = row * childHeight + verticalTopSpacing(row);
-                int cright = cleft + childWidth;
-                int cbottom = ctop + childHeight;
-
-                columnWidth += childWidth;
-
-                // 有两种情况需要考虑是否绘制元素顶部和底部填充颜色
-                // 1、当元素处于每一行最后一个元素
-                // 2、当元素为布局最后一个元素
-
-                boolean isLastColumn = col == mNumColumns - 1;
-                boolean isLastChild = i == count - 1;
-
-                if (!isLastColumn && !isLastChild) {
-                    childIndex++;
-                    continue;
-                }
+        final GridGeometry geometry = mGeometry;
+        final int rowCount = geometry.rowCount();
 
-                int horizontalSpace = 0;
-                if (mHorizontalStartEndSpaceEnabled) {
-                    horizontalSpace = mHorizontalSpace;
-                }
+        int horizontalSpace = 0;
+        if (mHorizontalStartEndSpaceEnabled) {
+            horizontalSpace = mHorizontalSpace;
+        }
 
-                // 最大宽度
-                int right = mHorizontalMaxWidth;
-                if (isLastColumn) {
-                    right = cright;
-                }
+        // 每行只需根据该行最后一个元素绘制顶部和底部填充颜色
+        for (int row = 0; row < rowCount; row++) {
+            int col = geometry.rowCellCounts[row] - 1;
+            int cright = geometry.cellRight(row, col);
+            int ctop = geometry.rowTops[row];
+            int cbottom = geometry.rowBottoms[row];
+
+            // 标题行占满整行，按一行中最后一列处理
+            boolean isLastColumn = geometry.rowFullSpans[row]
+                    || col == geometry.numColumns - 1;
+            boolean isLastChild = row == rowCount - 1;
+
+            // 最大宽度
+            int right = geometry.maxRight;
+            if (isLastColumn) {
+                right = cright;
+            }
 
-                // 为第一行子元素需判断是否绘制垂直顶部的间隔区域
-                boolean headerSpaceEnabled;
-                if (row == 0) {
-                    headerSpaceEnabled = mVerticalStartEndSpaceEnabled;
-                } else {
-                    headerSpaceEnabled = true;
-                }
+            // 为第一行子元素需判断是否绘制垂直顶部的间隔区域
+            boolean headerSpaceEnabled;
+            if (row == 0) {
+                headerSpaceEnabled = mVerticalStartEndSpaceEnabled;
+            } else {
+                headerSpaceEnabled = true;
+            }
 
-                if (headerSpaceEnabled) {
-                    canvas.drawRect(0, ctop - mVerticalSpace, right + horizontalSpace, ctop,
-                            mVerticalPaint);
-                }
+            if (headerSpaceEnabled) {
+                canvas.drawRect(0, ctop - mVerticalSpace, right + horizontalSpace, ctop,
+                        mVerticalPaint);
+            }
 
-                // 为最后子元素时需判断是否绘制垂直底部的间隔区域
-                if (isLastChild) {
-                    if (mVerticalStartEndSpaceEnabled) {
-                        canvas.drawRect(0, cbottom, cright + horizontalSpace, cbottom +
-                                mVerticalSpace, mVerticalPaint);
-                    }
+            // 为最后子元素时需判断是否绘制垂直底部的间隔区域
+            if (isLastChild) {
+                if (mVerticalStartEndSpaceEnabled) {
+                    canvas.drawRect(0, cbottom, cright + horizontalSpace, cbottom +
+                            mVerticalSpace, mVerticalPaint);
                 }
-                childIndex++;
             }
         }
     }
 
     /**
-     * 当前视图距离左边间距距离（只算间距）
+     * 设置作为整行标题显示的适配器视图类型（{@link ListAdapter#getItemViewType(int)}）
+     * 标题元素独占一行并打断列排列，之后的元素重新从第一列开始，
+     * 可用于在一个GridLayout中展示多个分组，替代多个嵌套的GridLayout
      *
-     * @param col
-     * @return
+     * @param viewTypes
      */
-    private int horizontalLeftSpacing(int col) {
-        int leftSpacing = col * mHorizontalSpace;
-        if (mHorizontalStartEndSpaceEnabled) {
-            leftSpacing += mHorizontalSpace;
+    public void setHeaderViewTypes(int... viewTypes) {
+        mHeaderViewTypes.clear();
+        for (int viewType : viewTypes) {
+            mHeaderViewTypes.put(viewType, true);
         }
-        return leftSpacing;
+        requestLayoutIfNecessary();
     }
 
     /**
-     * 当前视图距离顶部间距距离（只算间距）
+     * 指定位置是否为整行显示的标题元素
      *
-     * @param row
+     * @param position
      * @return
      */
-    private int verticalTopSpacing(int row) {
-        int topSpacing = row * mVerticalSpace;
-        if (mVerticalStartEndSpaceEnabled) {
-            topSpacing += mVerticalSpace;
+    private boolean isHeaderPosition(int position) {
+        if (mAdapter == null || mHeaderViewTypes.size() == 0
+                || position >= mAdapter.getCount()) {
+            return false;
         }
-        return topSpacing;
+        return mHeaderViewTypes.get(mAdapter.getItemViewType(position));
     }
 
-    public void setNumColumns(int numColumns) {
-        if (mNumColumns != numColumns) {
-            mNumColumns = numColumns;
-            requestLayoutIfNecessary();
+    /**
+     * 根据坐标查找所在元素位置，直接由各列边界和各行边界计算，不遍历childView
+     * （列数固定为O(1)，各行高度不同时按行二分查找）
+     *
+     * @param x 相对于GridLayout的横坐标
+     * @param y 相对于GridLayout的纵坐标
+     * @return 元素位置，坐标落在间隔区域、padding或空白区域时返回{@link #INVALID_POSITION}
+     */
+    public int pointToPosition(int x, int y) {
+        final GridGeometry geometry = mGeometry;
+        if (geometry == null) {
+            return INVALID_POSITION;
         }
-    }
 
-    public void setHorizontalSpace(int horizontalSpace) {
-        if (mHorizontalSpace != horizontalSpace) {
-            mHorizontalSpace = horizontalSpace;
-            requestLayoutIfNecessary();
-        }
+        return cellToPosition(geometry.findCell(x - getPaddingLeft(), y - getPaddingTop()));
     }
 
-    public void setVerticalSpace(int verticalSpace) {
-        if (mVerticalSpace != verticalSpace) {
-            mVerticalSpace = verticalSpace;
-            requestLayoutIfNecessary();
+    /**
+     * 元素序号对应的元素位置（即childView下标）
+     *
+     * @param cell
+     * @return
+     */
+    int cellToPosition(int cell) {
+        if (cell < 0 || cell >= mCellChildIndices.length) {
+            return INVALID_POSITION;
         }
+        return mCellChildIndices[cell];
     }
 
-    public void setHorizontalStartEndSpaceEnabled(boolean horizontalStartEndSpaceEnabled) {
-        if (mHorizontalStartEndSpaceEnabled != horizontalStartEndSpaceEnabled) {
-            mHorizontalStartEndSpaceEnabled = horizontalStartEndSpaceEnabled;
-            requestLayoutIfNecessary();
-        }
+    GridGeometry getGeometry() {
+        return mGeometry;
     }
 
-    public void setVerticalStartEndSpaceEnabled(boolean verticalStartEndSpaceEnabled) {
+    /**
+     * 设置可见范围变化监听器
+     * GridLayout放置在ScrollView等滚动容器中时，可根据回调只为可见及即将可见的元素加载图片，
+     * 并在快速滑动时暂停加载
+     *
+     * @param listener
+     */
+    public void setOnVisibleRangeChangedListener(OnVisibleRangeChangedListener listener) {
+        mOnVisibleRangeChangedListener = listener;
+        if (listener != null && mVisibleRangeTracker == null) {
+            mVisibleRangeTracker = new GridVisibleRangeTracker(this);
+            if (getWindowToken() != null) {
+                mVisibleRangeTracker.start();
+            }
+        } else if (listener == null && mVisibleRangeTracker != null) {
+            if (getWindowToken() != null) {
+                mVisibleRangeTracker.stop();
+            }
+            mVisibleRangeTracker = null;
+        }
+    }
+
+    /**
+     * 设置可见范围之外额外计入的行数（上下各计入extraRows行），用于提前加载即将可见的元素
+     *
+     * @param extraRows
+     */
+    public void setVisibleRangeExtraRows(int extraRows) {
+        mVisibleRangeExtraRows = Math.max(0, extraRows);
+        if (mVisibleRangeTracker != null) {
+            mVisibleRangeTracker.update();
+        }
+    }
+
+    int getVisibleRangeExtraRows() {
+        return mVisibleRangeExtraRows;
+    }
+
+    /**
+     * 第一个可见元素位置（含额外计入的行），需设置可见范围监听器
+     *
+     * @return
+     */
+    public int getFirstVisiblePosition() {
+        return mVisibleRangeTracker != null
+                ? mVisibleRangeTracker.getFirstPosition() : INVALID_POSITION;
+    }
+
+    /**
+     * 最后一个可见元素位置（含额外计入的行），需设置可见范围监听器
+     *
+     * @return
+     */
+    public int getLastVisiblePosition() {
+        return mVisibleRangeTracker != null
+                ? mVisibleRangeTracker.getLastPosition() : INVALID_POSITION;
+    }
+
+    /**
+     * 外层滚动容器当前滚动状态，需设置可见范围监听器
+     *
+     * @return
+     */
+    public int getScrollState() {
+        return mVisibleRangeTracker != null
+                ? mVisibleRangeTracker.getScrollState() : SCROLL_STATE_IDLE;
+    }
+
+    void dispatchVisibleRangeChanged(int firstPosition, int lastPosition) {
+        // 已添加的元素即将全部可见时继续预取，并在下一帧空闲时间内添加后续元素
+        if (mPrefetcher != null && mDrawnCellAdapter == null
+                && getChildCount() < getItemCount()) {
+            mPrefetcher.schedule();
+        }
+        if (mOnVisibleRangeChangedListener != null) {
+            mOnVisibleRangeChangedListener.onVisibleRangeChanged(this, firstPosition,
+                    lastPosition);
+        }
+    }
+
+    void dispatchScrollStateChanged(int scrollState) {
+        if (mOnVisibleRangeChangedListener != null) {
+            mOnVisibleRangeChangedListener.onScrollStateChanged(this, scrollState);
+        }
+    }
+
+    /**
+     * 获取元素在GridLayout中的区域
+     *
+     * @param position
+     * @param outRect
+     * @return 元素尚未布局时返回false
+     */
+    boolean getCellBounds(int position, Rect outRect) {
+        final GridGeometry geometry = mGeometry;
+        if (geometry == null) {
+            return false;
+        }
+
+        int cell = Arrays.binarySearch(mCellChildIndices, 0, geometry.cellCount, position);
+        if (cell < 0) {
+            return false;
+        }
+
+        int row = geometry.rowOfCell(cell);
+        int col = cell - geometry.rowStarts[row];
+        outRect.set(geometry.cellLeft(row, col) + getPaddingLeft(),
+                geometry.rowTops[row] + getPaddingTop(),
+                geometry.cellRight(row, col) + getPaddingLeft(),
+                geometry.rowBottoms[row] + getPaddingTop());
+        return true;
+    }
+
+    /**
+     * 重绘元素所在区域
+     *
+     * @param position
+     */
+    private void invalidateCell(int position) {
+        if (getCellBounds(position, mTempRect)) {
+            invalidate(mTempRect);
+        } else {
+            invalidate();
+        }
+    }
+
+    /**
+     * 切换绘制模式
+     *
+     * @param adapter 绘制模式适配器，为null时退出绘制模式
+     */
+    private void setDrawnCellAdapter(DrawnCellAdapter adapter) {
+        mDrawnCellAdapter = adapter;
+        mPressedCellPosition = INVALID_POSITION;
+        if (adapter != null) {
+            obtainCellRenderer();
+            if (mCellAccessibilityHelper == null) {
+                mCellAccessibilityHelper = new DrawnCellAccessibilityHelper(this);
+                ViewCompat.setAccessibilityDelegate(this, mCellAccessibilityHelper);
+            }
+        } else {
+            if (mCellAccessibilityHelper != null) {
+                // 部分support-v4版本不接受null，恢复为默认行为的代理
+                ViewCompat.setAccessibilityDelegate(this, new AccessibilityDelegateCompat());
+                mCellAccessibilityHelper = null;
+            }
+            if (mCellRenderer != null) {
+                mCellRenderer.setAdapter(null);
+            }
+        }
+    }
+
+    private DrawnCellRenderer obtainCellRenderer() {
+        if (mCellRenderer == null) {
+            mCellRenderer = new DrawnCellRenderer(this);
+        }
+        return mCellRenderer;
+    }
+
+    /**
+     * 绘制模式下已缓存的元素数量
+     *
+     * @return
+     */
+    int getDrawnCellCount() {
+        return mCellRenderer != null ? mCellRenderer.getCellCount() : 0;
+    }
+
+    /**
+     * 绘制模式下元素的无障碍描述，元素没有文字和描述时使用按位置生成的默认描述（不会返回空）
+     *
+     * @param position
+     * @return
+     */
+    CharSequence getDrawnCellDescription(int position) {
+        DrawnCell cell = mCellRenderer != null ? mCellRenderer.getCell(position) : null;
+        CharSequence description = cell != null ? cell.getContentDescription() : null;
+        if (TextUtils.isEmpty(description)) {
+            description = getResources().getString(R.string.gridlayout_drawn_cell_description,
+                    position + 1);
+        }
+        return description;
+    }
+
+    /**
+     * 设置绘制模式下元素文字大小
+     *
+     * @param textSize 像素
+     */
+    public void setCellTextSize(float textSize) {
+        obtainCellRenderer().setTextSize(textSize);
+        requestLayoutIfNecessary();
+    }
+
+    /**
+     * 设置绘制模式下元素文字颜色
+     *
+     * @param textColor
+     */
+    public void setCellTextColor(int textColor) {
+        obtainCellRenderer().setTextColor(textColor);
+        invalidate();
+    }
+
+    /**
+     * 设置绘制模式下元素背景颜色
+     *
+     * @param backgroundColor
+     */
+    public void setCellBackgroundColor(int backgroundColor) {
+        obtainCellRenderer().setBackgroundColor(backgroundColor);
+        invalidate();
+    }
+
+    /**
+     * 设置绘制模式下元素按下时的背景颜色
+     *
+     * @param pressedColor
+     */
+    public void setCellPressedColor(int pressedColor) {
+        obtainCellRenderer().setPressedColor(pressedColor);
+        invalidate();
+    }
+
+    /**
+     * 设置绘制模式下元素内边距
+     *
+     * @param horizontal 左右内边距
+     * @param vertical   上下内边距
+     */
+    public void setCellPadding(int horizontal, int vertical) {
+        obtainCellRenderer().setPadding(horizontal, vertical);
+        requestLayoutIfNecessary();
+    }
+
+    /**
+     * 设置绘制模式下图标与文字的间距
+     *
+     * @param iconTextSpacing
+     */
+    public void setCellIconTextSpacing(int iconTextSpacing) {
+        obtainCellRenderer().setIconTextSpacing(iconTextSpacing);
+        requestLayoutIfNecessary();
+    }
+
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return super.verifyDrawable(who)
+                || (mDrawnCellAdapter != null && mCellRenderer.hasIcon(who));
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        if (mCellAccessibilityHelper != null && mCellAccessibilityHelper.dispatchHoverEvent(event)) {
+            return true;
+        }
+        return super.dispatchHoverEvent(event);
+    }
+
+    /**
+     * 获取指定位置对应的childView
+     *
+     * @param position
+     * @return
+     */
+    private View getPositionView(int position) {
+        if (position < 0 || position >= getChildCount()) {
+            return null;
+        }
+        return getChildAt(position);
+    }
+
+    /**
+     * 设置元素按下状态，绘制模式下重绘该元素区域
+     *
+     * @param position
+     * @param pressed
+     */
+    private void setItemPressed(int position, boolean pressed) {
+        if (mDrawnCellAdapter == null) {
+            View child = getPositionView(position);
+            if (child != null) {
+                child.setPressed(pressed);
+            }
+            return;
+        }
+
+        if (pressed) {
+            mPressedCellPosition = position;
+        } else if (mPressedCellPosition == position) {
+            mPressedCellPosition = INVALID_POSITION;
+        } else {
+            return;
+        }
+        invalidateCell(position);
+    }
+
+    /**
+     * 是否由GridLayout统一分发点击事件，绘制模式下始终如此
+     *
+     * @return
+     */
+    private boolean isItemTouchDispatching() {
+        return mItemTouchDispatchEnabled || mDrawnCellAdapter != null;
+    }
+
+    /**
+     * 开启后由GridLayout根据点击坐标统一分发元素点击事件和按下状态，
+     * childView共用同一个点击监听（仅供无障碍服务和按键触发），不再逐个参与触摸事件分发
+     *
+     * @param itemTouchDispatchEnabled
+     */
+    public void setItemTouchDispatchEnabled(boolean itemTouchDispatchEnabled) {
+        if (mItemTouchDispatchEnabled != itemTouchDispatchEnabled) {
+            mItemTouchDispatchEnabled = itemTouchDispatchEnabled;
+            if (mAdapter != null) {
+                notifyDataChanged();
+            }
+        }
+    }
+
+    public boolean isItemTouchDispatchEnabled() {
+        return mItemTouchDispatchEnabled;
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent ev) {
+        /**
+         * 按下位置落在元素上时直接拦截，后续事件由onTouchEvent处理
+         */
+        if (isItemTouchDispatching() && isEnabled()
+                && ev.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            return pointToPosition((int) ev.getX(), (int) ev.getY()) != INVALID_POSITION;
+        }
+        return super.onInterceptTouchEvent(ev);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!isItemTouchDispatching() || !isEnabled()) {
+            return super.onTouchEvent(event);
+        }
+
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN: {
+                mMotionX = event.getX();
+                mMotionY = event.getY();
+                mMotionPosition = pointToPosition((int) mMotionX, (int) mMotionY);
+                if (mMotionPosition == INVALID_POSITION) {
+                    return false;
+                }
+                postDelayed(mPendingCheckForTap, ViewConfiguration.getTapTimeout());
+                return true;
+            }
+            case MotionEvent.ACTION_MOVE: {
+                if (mMotionPosition != INVALID_POSITION
+                        && (Math.abs(event.getX() - mMotionX) > mTouchSlop
+                        || Math.abs(event.getY() - mMotionY) > mTouchSlop)) {
+                    cancelItemPress();
+                }
+                return true;
+            }
+            case MotionEvent.ACTION_UP: {
+                final int position = mMotionPosition;
+                cancelItemPress();
+                if (position != INVALID_POSITION) {
+                    // 上一次点击的按下状态尚未取消时立即取消
+                    removeCallbacks(mPendingUnpress);
+                    mPendingUnpress.run();
+
+                    // 按下时间过短时补充显示按下状态
+                    setItemPressed(position, true);
+                    mUnpressPosition = position;
+                    postDelayed(mPendingUnpress, ViewConfiguration.getPressedStateDuration());
+
+                    // 绘制模式下没有对应的childView，回调中的视图为GridLayout本身
+                    View child = getPositionView(position);
+                    performItemClick(child != null ? child : this, position);
+                }
+                return true;
+            }
+            case MotionEvent.ACTION_CANCEL: {
+                cancelItemPress();
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 取消当前元素的按下状态
+     */
+    private void cancelItemPress() {
+        removeCallbacks(mPendingCheckForTap);
+        setItemPressed(mMotionPosition, false);
+        mMotionPosition = INVALID_POSITION;
+    }
+
+    /**
+     * 分发元素点击事件
+     *
+     * @param view
+     * @param position
+     * @return
+     */
+    public boolean performItemClick(View view, int position) {
+        if (mOnItemClickListener != null) {
+            playSoundEffect(SoundEffectConstants.CLICK);
+            mOnItemClickListener.onItemClick(view, position);
+            return true;
+        }
+        return false;
+    }
+
+    public void setNumColumns(int numColumns) {
+        if (mNumColumns != numColumns) {
+            mNumColumns = numColumns;
+            requestLayoutIfNecessary();
+        }
+    }
+
+    public void setHorizontalSpace(int horizontalSpace) {
+        if (mHorizontalSpace != horizontalSpace) {
+            mHorizontalSpace = horizontalSpace;
+            requestLayoutIfNecessary();
+        }
+    }
+
+    public void setVerticalSpace(int verticalSpace) {
+        if (mVerticalSpace != verticalSpace) {
+            mVerticalSpace = verticalSpace;
+            requestLayoutIfNecessary();
+        }
+    }
+
+    public void setHorizontalStartEndSpaceEnabled(boolean horizontalStartEndSpaceEnabled) {
+        if (mHorizontalStartEndSpaceEnabled != horizontalStartEndSpaceEnabled) {
+            mHorizontalStartEndSpaceEnabled = horizontalStartEndSpaceEnabled;
+            requestLayoutIfNecessary();
+        }
+    }
+
+    public void setVerticalStartEndSpaceEnabled(boolean verticalStartEndSpaceEnabled) {
         if (mVerticalStartEndSpaceEnabled != verticalStartEndSpaceEnabled) {
             mVerticalStartEndSpaceEnabled = verticalStartEndSpaceEnabled;
             requestLayoutIfNecessary();
@@ -596,7 +1333,7 @@ public class GridLayout extends ViewGroup {
      * 是否是必须重新布局
      */
     private void requestLayoutIfNecessary() {
-        if (getChildCount() > 0) {
+        if (getChildCount() > 0 || mDrawnCellAdapter != null) {
             requestLayout();
             invalidate();
         }
@@ -615,61 +1352,505 @@ public class GridLayout extends ViewGroup {
     }
 
     public void setAdapter(BaseAdapter adapter) {
-        if (mAdapter != null && mDataSetObserver != null) {
-            mAdapter.unregisterDataSetObserver(mDataSetObserver);
-        }
-
         this.mAdapter = adapter;
-        mDataSetObserver = new AdapterDataSetObserver();
-        mAdapter.registerDataSetObserver(mDataSetObserver);
+        setDrawnCellAdapter(adapter instanceof DrawnCellAdapter ? (DrawnCellAdapter) adapter : null);
+        mAdapterConnection.setAdapter(adapter);
+        mDataChangeMissed = false;
         notifyDataChanged();
     }
 
     private void notifyDataChanged() {
+        if (mDrawnCellAdapter != null) {
+            // 绘制模式下不创建childView，只丢弃元素模型和文字布局缓存
+            removeAllViews();
+            if (mPrefetcher != null) {
+                mPrefetcher.reset();
+            }
+            if (mItemAnimator != null) {
+                mItemAnimator.cancel();
+            }
+            mCellRenderer.setAdapter(mDrawnCellAdapter);
+            mPressedCellPosition = INVALID_POSITION;
+            mCellAccessibilityHelper.invalidateRoot();
+            requestLayoutIfNecessary();
+            return;
+        }
+
+        if (mItemAnimator != null && mGeometry != null && getWindowToken() != null) {
+            mItemAnimator.recordPreLayout();
+        }
         this.removeAllViews();
+        if (mPrefetcher != null) {
+            mPrefetcher.reset();
+        }
 
+        /**
+         * 开启预取时只同步创建前mPrefetchInitialCount个childView，其余在后续帧的空闲时间内预取
+         */
         final int count = mAdapter.getCount();
-        for (int i = 0; i < count; i++) {
-            View childView = mAdapter.getView(i, null, this);
-            final int position = i;
-            childView.setOnClickListener(new OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    if (mOnItemClickListener != null) {
-                        mOnItemClickListener.onItemClick(v, position);
-                    }
+        int bindCount = count;
+        if (isPrefetchEnabled()) {
+            bindCount = Math.min(count, mPrefetchInitialCount);
+        }
+
+        for (int i = 0; i < bindCount; i++) {
+            attachItemView(bindItemView(i, null), i);
+        }
+
+        if (bindCount < count && getWindowToken() != null) {
+            mPrefetcher.schedule();
+        }
+
+        requestLayoutIfNecessary();
+    }
+
+    /**
+     * 重新添加到窗口时与适配器同步：已有childView作为convertView原地重新绑定，
+     * 只增删数量差异部分，不像notifyDataChanged那样移除并重新创建所有childView
+     */
+    private void resyncItemViews() {
+        if (mDrawnCellAdapter != null) {
+            // 绘制模式下没有childView，只需丢弃元素模型缓存
+            notifyDataChanged();
+            return;
+        }
+
+        if (mPrefetcher != null) {
+            mPrefetcher.reset();
+        }
+
+        final int count = mAdapter.getCount();
+        final int childCount = getChildCount();
+        if (childCount > count) {
+            removeViews(count, childCount - count);
+        }
+
+        final int rebindCount = Math.min(childCount, count);
+        for (int i = 0; i < rebindCount; i++) {
+            View child = getChildAt(i);
+            View view = bindItemView(i, child);
+            if (view != child) {
+                removeViewAt(i);
+                attachItemView(view, i);
+            } else {
+                mChildItemIds[i] = itemIdOf(i);
+            }
+        }
+
+        if (count > rebindCount) {
+            if (isPrefetchEnabled()) {
+                mPrefetcher.schedule();
+            } else {
+                for (int i = rebindCount; i < count; i++) {
+                    attachItemView(bindItemView(i, null), i);
                 }
-            });
-            addView(childView);
+            }
         }
 
         requestLayoutIfNecessary();
     }
 
-    class AdapterDataSetObserver extends DataSetObserver {
-        @Override
-        public void onChanged() {
-            super.onChanged();
+    /**
+     * 从适配器中创建并绑定指定位置的childView（不添加到布局中）
+     *
+     * @param position
+     * @param convertView 可复用的旧视图，可为null
+     * @return
+     */
+    View bindItemView(final int position, View convertView) {
+        View childView = mAdapter.getView(position, convertView, this);
+        if (mItemTouchDispatchEnabled) {
+            // 触摸点击由GridLayout根据坐标统一分发，共用监听只保证元素可被无障碍服务和按键点击
+            childView.setOnClickListener(mDispatchedItemClickListener);
+            return childView;
+        }
+        childView.setOnClickListener(new OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (mOnItemClickListener != null) {
+                    mOnItemClickListener.onItemClick(v, position);
+                }
+            }
+        });
+        return childView;
+    }
+
+    /**
+     * 将已绑定的childView添加到布局中
+     *
+     * @param childView
+     * @param position
+     */
+    void attachItemView(View childView, int position) {
+        if (mChildItemIds.length <= position) {
+            long[] itemIds = new long[Math.max(position + 1, mChildItemIds.length * 2)];
+            System.arraycopy(mChildItemIds, 0, itemIds, 0, mChildItemIds.length);
+            mChildItemIds = itemIds;
+        }
+        mChildItemIds[position] = itemIdOf(position);
+        addView(childView, position);
+    }
+
+    /**
+     * 元素ID，适配器ID不稳定时使用位置
+     *
+     * @param position
+     * @return
+     */
+    private long itemIdOf(int position) {
+        return mAdapter.hasStableIds() ? mAdapter.getItemId(position) : position;
+    }
+
+    /**
+     * childView绑定时对应的元素ID
+     *
+     * @param index
+     * @return
+     */
+    long getChildItemId(int index) {
+        return mAdapter != null && index < mChildItemIds.length ? mChildItemIds[index] : index;
+    }
+
+    /**
+     * 适配器当前所有元素的ID
+     *
+     * @return
+     */
+    HashSet<Long> getAdapterItemIds() {
+        final int count = getItemCount();
+        HashSet<Long> itemIds = new HashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            itemIds.add(itemIdOf(i));
+        }
+        return itemIds;
+    }
+
+    /**
+     * 设置是否开启元素增删移动动画
+     * 动画只改变childView的translationX/Y和alpha，不会在动画过程中重新测量和布局
+     *
+     * @param itemAnimationEnabled
+     */
+    public void setItemAnimationEnabled(boolean itemAnimationEnabled) {
+        if (itemAnimationEnabled && mItemAnimator == null) {
+            mItemAnimator = new GridItemAnimator(this);
+        } else if (!itemAnimationEnabled && mItemAnimator != null) {
+            mItemAnimator.cancel();
+            mItemAnimator = null;
+        }
+    }
+
+    public boolean isItemAnimationEnabled() {
+        return mItemAnimator != null;
+    }
+
+    /**
+     * 设置元素动画时长
+     *
+     * @param duration 毫秒
+     */
+    public void setItemAnimationDuration(long duration) {
+        setItemAnimationEnabled(true);
+        mItemAnimator.setDuration(duration);
+    }
+
+    /**
+     * 单个元素发生变化时只处理该位置的childView，其它childView不受影响
+     * 携带payload时交由适配器局部绑定，此时是否重新布局完全取决于childView自身是否请求
+     *
+     * @param position
+     * @param payload
+     */
+    private void notifyItemChanged(int position, Object payload) {
+        if (position < 0 || position >= getItemCount()) {
+            return;
+        }
+
+        if (mDrawnCellAdapter != null) {
+            notifyDrawnCellChanged(position);
+            return;
+        }
+
+        if (position < getChildCount()) {
+            View child = getChildAt(position);
+            View view = rebindItemView(child, position, payload);
+            if (view != child) {
+                removeViewAt(position);
+                attachItemView(view, position);
+            }
+        } else if (mPrefetcher != null) {
+            // 已预取但尚未添加到布局中的视图同样需要更新
+            View cached = mPrefetcher.getCachedView(position);
+            if (cached != null) {
+                mPrefetcher.putCachedView(position, rebindItemView(cached, position, payload));
+            }
+        }
+    }
+
+    /**
+     * 绘制模式下单个元素变化：重新获取元素模型，高度不变时只重绘该元素区域，不重新布局
+     *
+     * @param position
+     */
+    private void notifyDrawnCellChanged(int position) {
+        final GridGeometry geometry = mGeometry;
+        if (geometry == null || position >= geometry.cellCount) {
+            mCellRenderer.invalidate(position);
+            mCellAccessibilityHelper.invalidateVirtualView(position);
+            requestLayoutIfNecessary();
+            return;
+        }
+
+        int row = geometry.rowOfCell(position);
+        int col = position - geometry.rowStarts[row];
+        int cellWidth = geometry.cellRight(row, col) - geometry.cellLeft(row, col);
+
+        // 与该元素变化前的高度比较，所在行中其它元素更高时高度变化不影响行高
+        int oldHeight = mCellRenderer.measure(position, cellWidth);
+        mCellRenderer.invalidate(position);
+        mCellAccessibilityHelper.invalidateVirtualView(position);
+        int newHeight = mCellRenderer.measure(position, cellWidth);
+
+        int rowHeight = geometry.rowBottoms[row] - geometry.rowTops[row];
+        boolean rowHeightChanged = newHeight > rowHeight
+                || (oldHeight == rowHeight && newHeight < rowHeight);
+        if (rowHeightChanged) {
+            requestLayoutIfNecessary();
+        } else {
+            invalidateCell(position);
+        }
+    }
+
+    /**
+     * 重新绑定已存在的childView，优先使用payload局部绑定
+     *
+     * @param view
+     * @param position
+     * @param payload
+     * @return 绑定后的视图，适配器未复用convertView时与传入的视图不同
+     */
+    private View rebindItemView(View view, int position, Object payload) {
+        if (payload != null
+                && ((GridBaseAdapter) mAdapter).onBindPayload(view, position, payload)) {
+            return view;
+        }
+        return bindItemView(position, view);
+    }
+
+    int getItemCount() {
+        return mAdapter != null ? mAdapter.getCount() : 0;
+    }
+
+    /**
+     * 是否开启空闲预取，Choreographer仅API 16及以上可用
+     *
+     * @return
+     */
+    private boolean isPrefetchEnabled() {
+        if (mPrefetchDepth <= 0 || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return false;
+        }
+        if (mPrefetcher == null) {
+            mPrefetcher = new GridPrefetcher(this);
+        }
+        return true;
+    }
+
+    /**
+     * 设置空闲预取数量，为0时关闭预取
+     * 空闲时间内最多提前创建prefetchDepth个childView，作为一批一次性添加到布局中；
+     * 设置了可见范围监听器时，该批视图在已添加元素的最后一行进入可见范围后才添加
+     *
+     * @param prefetchDepth
+     */
+    public void setPrefetchDepth(int prefetchDepth) {
+        mPrefetchDepth = Math.max(0, prefetchDepth);
+        if (mPrefetchDepth == 0 && mPrefetcher != null && mAdapter != null
+                && getChildCount() < mAdapter.getCount()) {
+            // 关闭预取时剩余未添加的childView需要立即同步创建
             notifyDataChanged();
         }
     }
 
+    public int getPrefetchDepth() {
+        return mPrefetchDepth;
+    }
+
+    /**
+     * 设置开启预取时数据变化后同步创建的childView数量，通常为首屏可见的元素数量，
+     * 默认为12
+     *
+     * @param prefetchInitialCount
+     */
+    public void setPrefetchInitialCount(int prefetchInitialCount) {
+        mPrefetchInitialCount = Math.max(0, prefetchInitialCount);
+    }
+
+    public int getPrefetchInitialCount() {
+        return mPrefetchInitialCount;
+    }
+
+    /**
+     * 预取缓存中最多保留的视图数量
+     *
+     * @return
+     */
+    int getPrefetchLimit() {
+        return mPrefetchDepth;
+    }
+
+    /**
+     * 预取的视图按批一次性添加到布局中，每批最多prefetchDepth个：
+     * 设置了可见范围监听器时，在已添加元素的最后一行进入可见范围后添加；
+     * 否则缓存满一批（或剩余childView已全部预取完成）时立即添加
+     */
+    void attachPrefetchedViewsIfNeeded() {
+        final int childCount = getChildCount();
+        final int cachedCount = mPrefetcher.getCachedCount();
+        if (cachedCount == 0) {
+            return;
+        }
+
+        boolean needed = childCount + cachedCount >= getItemCount();
+        if (!needed) {
+            if (mVisibleRangeTracker != null) {
+                int lastPosition = mVisibleRangeTracker.getLastPosition();
+                needed = childCount == 0
+                        || (lastPosition != INVALID_POSITION && lastPosition >= childCount - 1);
+            } else {
+                needed = cachedCount >= mPrefetchDepth;
+            }
+        }
+
+        if (needed) {
+            mPrefetcher.attachCachedViews();
+        }
+    }
+
+    /**
+     * 设置每帧空闲预取可用的最大时长，实际可用时长同时受当前帧截止时间限制
+     *
+     * @param budgetMillis 毫秒
+     */
+    public void setPrefetchBudget(float budgetMillis) {
+        mPrefetchBudgetNanos = (long) (budgetMillis * 1000000L);
+    }
+
+    long getPrefetchBudgetNanos() {
+        return mPrefetchBudgetNanos;
+    }
+
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
-        if (mAdapter != null && mDataSetObserver == null) {
-            mDataSetObserver = new AdapterDataSetObserver();
-            mAdapter.registerDataSetObserver(mDataSetObserver);
+        mAdapterConnection.onAttachedToWindow();
+
+        if (mVisibleRangeTracker != null) {
+            mVisibleRangeTracker.start();
+        }
+
+        /**
+         * 脱离窗口期间的数据变化没有收到通知，复用已有childView重新同步（同时会重新开始预取）
+         */
+        if (mAdapter != null && mDataChangeMissed) {
+            mDataChangeMissed = false;
+            resyncItemViews();
+        } else if (mPrefetcher != null && mDrawnCellAdapter == null
+                && getChildCount() < getItemCount()) {
+            // 脱离窗口期间设置的适配器，添加到窗口后才开始预取
+            mPrefetcher.schedule();
         }
     }
 
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
-        if (mAdapter != null && mDataSetObserver != null) {
-            mAdapter.unregisterDataSetObserver(mDataSetObserver);
-            mDataSetObserver = null;
+        mAdapterConnection.onDetachedFromWindow();
+        mDataChangeMissed = mAdapter != null;
+
+        // 释放预取缓存和动画中持有的视图，重新添加到窗口时会重新同步
+        if (mPrefetcher != null) {
+            mPrefetcher.reset();
+        }
+        if (mVisibleRangeTracker != null) {
+            mVisibleRangeTracker.stop();
+        }
+        if (mItemAnimator != null) {
+            mItemAnimator.cancel();
+        }
+        if (mMotionPosition != INVALID_POSITION) {
+            cancelItemPress();
         }
+        removeCallbacks(mPendingUnpress);
+        mPendingUnpress.run();
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        Parcelable superState = super.onSaveInstanceState();
+
+        /**
+         * 元素ID不稳定时无法在恢复后对应到同一元素，不保存尺寸信息
+         * 数据变化后尚未重新布局（或仍在预取中）时几何信息与childView不对应，同样不保存
+         */
+        final GridGeometry geometry = mGeometry;
+        if (geometry == null || mAdapter == null || !mAdapter.hasStableIds()
+                || mDrawnCellAdapter != null || isLayoutRequested()
+                || getChildCount() < geometry.cellCount) {
+            return superState;
+        }
+
+        SavedState ss = new SavedState(superState);
+        ss.numColumns = mNumColumns;
+        ss.itemIds = new long[geometry.cellCount];
+        ss.cellWidths = new int[geometry.cellCount];
+        ss.measuredWidths = new int[geometry.cellCount];
+        ss.measuredHeights = new int[geometry.cellCount];
+
+        final int itemCount = mAdapter.getCount();
+        final int rowCount = geometry.rowCount();
+        for (int row = 0; row < rowCount; row++) {
+            final int start = geometry.rowStarts[row];
+            for (int col = 0; col < geometry.rowCellCounts[row]; col++) {
+                final int cell = start + col;
+                final int position = mCellChildIndices[cell];
+                if (position >= itemCount) {
+                    continue;
+                }
+                View child = getChildAt(position);
+                ss.itemIds[cell] = mAdapter.getItemId(position);
+                ss.cellWidths[cell] = geometry.cellRight(row, col) - geometry.cellLeft(row, col);
+                ss.measuredWidths[cell] = child.getMeasuredWidth();
+                ss.measuredHeights[cell] = child.getMeasuredHeight();
+            }
+        }
+        return ss;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+
+        SavedState ss = (SavedState) state;
+        super.onRestoreInstanceState(ss.getSuperState());
+
+        // 列数变化时保存的尺寸已无参考意义
+        if (ss.numColumns != mNumColumns) {
+            return;
+        }
+
+        mRestoredState = ss;
+        mRestoredIndices = new HashMap<>(ss.itemIds.length * 2);
+        for (int i = 0; i < ss.itemIds.length; i++) {
+            // 宽度为0表示该元素不属于适配器，未保存尺寸
+            if (ss.cellWidths[i] > 0) {
+                mRestoredIndices.put(ss.itemIds[i], i);
+            }
+        }
+        requestLayoutIfNecessary();
     }
 
     @Override
@@ -691,6 +1872,54 @@ public class GridLayout extends ViewGroup {
         mOnItemClickListener = onItemClickListener;
     }
 
+    /**
+     * 保存的宫格尺寸信息：列数及各元素的ID、所占宽度和测量尺寸
+     */
+    static class SavedState extends BaseSavedState {
+
+        int numColumns;
+        long[] itemIds;
+        int[] cellWidths;
+        int[] measuredWidths;
+        int[] measuredHeights;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            numColumns = in.readInt();
+            itemIds = in.createLongArray();
+            cellWidths = in.createIntArray();
+            measuredWidths = in.createIntArray();
+            measuredHeights = in.createIntArray();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(numColumns);
+            out.writeLongArray(itemIds);
+            out.writeIntArray(cellWidths);
+            out.writeIntArray(measuredWidths);
+            out.writeIntArray(measuredHeights);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR =
+                new Parcelable.Creator<SavedState>() {
+                    @Override
+                    public SavedState createFromParcel(Parcel in) {
+                        return new SavedState(in);
+                    }
+
+                    @Override
+                    public SavedState[] newArray(int size) {
+                        return new SavedState[size];
+                    }
+                };
+    }
+
     /**
      * @Descirption: 宫格视图点击事件监听器
      * @Author: monlong
@@ -708,4 +1937,32 @@ public class GridLayout extends ViewGroup {
          */
         void onItemClick(View v, int index);
     }
+
+    /**
+     * @Descirption: 宫格视图可见范围变化监听器
+     * @Author: monlong
+     * @Email: 826309156@qq.com
+     * @Date: 2026-10-19 15:20
+     * @Version: 1.0.0
+     */
+    public interface OnVisibleRangeChangedListener {
+
+        /**
+         * 可见范围变化回调
+         *
+         * @param gridLayout
+         * @param firstPosition 第一个可见元素位置，不可见时为{@link #INVALID_POSITION}
+         * @param lastPosition  最后一个可见元素位置，不可见时为{@link #INVALID_POSITION}
+         */
+        void onVisibleRangeChanged(GridLayout gridLayout, int firstPosition, int lastPosition);
+
+        /**
+         * 外层滚动容器滚动状态变化回调
+         *
+         * @param gridLayout
+         * @param scrollState {@link #SCROLL_STATE_IDLE}、{@link #SCROLL_STATE_SCROLLING}
+         *                    或{@link #SCROLL_STATE_FLING}
+         */
+        void onScrollStateChanged(GridLayout gridLayout, int scrollState);
+    }
 }
@@ -0,0 +1,165 @@
+package com.monlong.widget;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.util.SparseArray;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.View;
+import android.view.WindowManager;
+
+/**
+ * @Descirption: 宫格视图空闲预取器
+ * 利用每帧绘制完成后距离下一帧截止时间的剩余空闲时间，提前创建并绑定后续childView放入缓存，
+ * 缓存中的视图只在需要时由GridLayout一次性添加到布局中，避免宫格逐帧增长、反复重新布局
+ * @Author: monlong
+ * @Email: 826309156@qq.com
+ * @Date: 2026-10-19 10:12
+ * @Version: 1.0.0
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+final class GridPrefetcher implements Choreographer.FrameCallback, Runnable {
+
+    /**
+     * 无法获取屏幕刷新率时默认的帧间隔（60fps）
+     */
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+
+    private final GridLayout mHost;
+
+    /**
+     * 每帧间隔时长（纳秒）
+     */
+    private final long mFrameIntervalNanos;
+
+    /**
+     * 已预取但尚未添加到布局中的视图，key为适配器位置
+     */
+    private final SparseArray<View> mCache = new SparseArray<>();
+
+    /**
+     * 当前帧的开始时间（纳秒）
+     */
+    private long mFrameTimeNanos;
+
+    /**
+     * 是否已注册下一帧回调
+     */
+    private boolean mScheduled;
+
+    GridPrefetcher(GridLayout host) {
+        mHost = host;
+        mFrameIntervalNanos = frameIntervalNanos(host.getContext());
+    }
+
+    /**
+     * 根据屏幕刷新率计算帧间隔
+     *
+     * @param context
+     * @return
+     */
+    private static long frameIntervalNanos(Context context) {
+        WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        if (wm != null) {
+            Display display = wm.getDefaultDisplay();
+            float refreshRate = display != null ? display.getRefreshRate() : 0;
+            if (refreshRate >= 30f) {
+                return (long) (1000000000L / refreshRate);
+            }
+        }
+        return DEFAULT_FRAME_INTERVAL_NANOS;
+    }
+
+    /**
+     * 注册下一帧回调，开始（或继续）预取
+     */
+    void schedule() {
+        if (!mScheduled) {
+            mScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * 停止预取，已缓存的视图保留，再次schedule时继续使用
+     */
+    void stop() {
+        if (mScheduled) {
+            mScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+        mHost.removeCallbacks(this);
+    }
+
+    /**
+     * 停止预取并丢弃缓存（数据发生变化时缓存中的视图已失效）
+     */
+    void reset() {
+        stop();
+        mCache.clear();
+    }
+
+    View getCachedView(int position) {
+        return mCache.get(position);
+    }
+
+    void putCachedView(int position, View view) {
+        mCache.put(position, view);
+    }
+
+    int getCachedCount() {
+        return mCache.size();
+    }
+
+    /**
+     * 将缓存中紧接已添加childView之后的视图一次性添加到布局中
+     */
+    void attachCachedViews() {
+        int position = mHost.getChildCount();
+        View view;
+        while ((view = mCache.get(position)) != null) {
+            mCache.remove(position);
+            mHost.attachItemView(view, position);
+            position++;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mScheduled = false;
+        mFrameTimeNanos = frameTimeNanos;
+
+        /**
+         * post的任务会在本帧绘制完成后执行，此时剩余时间即为空闲时间
+         */
+        mHost.post(this);
+    }
+
+    @Override
+    public void run() {
+        final int count = mHost.getItemCount();
+        final int limit = mHost.getPrefetchLimit();
+        final long now = System.nanoTime();
+        final long deadline = Math.min(mFrameTimeNanos + mFrameIntervalNanos,
+                now + mHost.getPrefetchBudgetNanos());
+
+        int position = mHost.getChildCount() + mCache.size();
+
+        // 每次至少预取一个，避免主线程持续繁忙时预取永远无法推进
+        boolean first = true;
+        while (position < count && mCache.size() < limit
+                && (first || System.nanoTime() < deadline)) {
+            mCache.put(position, mHost.bindItemView(position, null));
+            position++;
+            first = false;
+        }
+
+        mHost.attachPrefetchedViewsIfNeeded();
+
+        // 缓存已满时停止，直到缓存中的视图被添加到布局中
+        if (mHost.getChildCount() + mCache.size() < count && mCache.size() < limit) {
+            schedule();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.monlong.widget;
+
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.view.ViewTreeObserver;
+
+/**
+ * @Descirption: 宫格可见范围跟踪器
+ * 监听窗口内的滚动（如外层ScrollView），根据GridLayout当前在屏幕上的可见区域和宫格几何信息
+ * 计算可见的元素位置范围，并根据滚动速度推算滚动状态（静止/滑动/快速滑动）
+ * @Author: monlong
+ * @Email: 826309156@qq.com
+ * @Date: 2026-10-19 15:20
+ * @Version: 1.0.0
+ */
+final class GridVisibleRangeTracker implements ViewTreeObserver.OnScrollChangedListener,
+        Runnable {
+
+    /**
+     * 最后一次滚动后超过该时长未再滚动则认为已静止
+     */
+    private static final long IDLE_DELAY_MS = 100;
+
+    /**
+     * 滚动速度超过该值（dp/s）时认为处于快速滑动状态
+     */
+    private static final int FLING_VELOCITY_DP = 1000;
+
+    private final GridLayout mHost;
+    private final float mFlingVelocity;
+    private final Rect mVisibleRect = new Rect();
+    private final int[] mLocation = new int[2];
+
+    private int mFirstPosition = GridLayout.INVALID_POSITION;
+    private int mLastPosition = GridLayout.INVALID_POSITION;
+    private int mScrollState = GridLayout.SCROLL_STATE_IDLE;
+
+    private int mLastWindowY;
+    private long mLastScrollTime;
+
+    GridVisibleRangeTracker(GridLayout host) {
+        mHost = host;
+        mFlingVelocity = FLING_VELOCITY_DP * host.getResources().getDisplayMetrics().density;
+    }
+
+    int getFirstPosition() {
+        return mFirstPosition;
+    }
+
+    int getLastPosition() {
+        return mLastPosition;
+    }
+
+    int getScrollState() {
+        return mScrollState;
+    }
+
+    /**
+     * 开始跟踪（GridLayout添加到窗口时调用）
+     */
+    void start() {
+        mHost.getLocationInWindow(mLocation);
+        mLastWindowY = mLocation[1];
+        mLastScrollTime = SystemClock.uptimeMillis();
+        mHost.getViewTreeObserver().addOnScrollChangedListener(this);
+        update();
+    }
+
+    /**
+     * 停止跟踪（GridLayout从窗口移除时调用）
+     */
+    void stop() {
+        mHost.getViewTreeObserver().removeOnScrollChangedListener(this);
+        mHost.removeCallbacks(this);
+        setScrollState(GridLayout.SCROLL_STATE_IDLE);
+    }
+
+    @Override
+    public void onScrollChanged() {
+        mHost.getLocationInWindow(mLocation);
+        final long now = SystemClock.uptimeMillis();
+        final int dy = mLocation[1] - mLastWindowY;
+        final long dt = now - mLastScrollTime;
+        mLastWindowY = mLocation[1];
+        mLastScrollTime = now;
+
+        if (dy != 0 && dt > 0) {
+            float velocity = Math.abs(dy) * 1000f / dt;
+            setScrollState(velocity >= mFlingVelocity
+                    ? GridLayout.SCROLL_STATE_FLING : GridLayout.SCROLL_STATE_SCROLLING);
+            mHost.removeCallbacks(this);
+            mHost.postDelayed(this, IDLE_DELAY_MS);
+        }
+
+        update();
+    }
+
+    /**
+     * 滚动停止
+     */
+    @Override
+    public void run() {
+        setScrollState(GridLayout.SCROLL_STATE_IDLE);
+    }
+
+    private void setScrollState(int scrollState) {
+        if (mScrollState != scrollState) {
+            mScrollState = scrollState;
+            mHost.dispatchScrollStateChanged(scrollState);
+        }
+    }
+
+    /**
+     * 重新计算可见范围，发生变化时通知监听器
+     */
+    void update() {
+        int first = GridLayout.INVALID_POSITION;
+        int last = GridLayout.INVALID_POSITION;
+
+        final GridGeometry geometry = mHost.getGeometry();
+        if (geometry != null && geometry.rowCount() > 0 && mHost.isShown()
+                && mHost.getLocalVisibleRect(mVisibleRect)) {
+            final int extraRows = mHost.getVisibleRangeExtraRows();
+            final int top = mVisibleRect.top - mHost.getPaddingTop();
+            final int bottom = mVisibleRect.bottom - mHost.getPaddingTop();
+
+            int firstRow = Math.max(0, geometry.firstRowBelow(top) - extraRows);
+            int lastRow = Math.min(geometry.rowCount() - 1,
+                    geometry.lastRowAbove(bottom) + extraRows);
+            if (firstRow <= lastRow) {
+                first = mHost.cellToPosition(geometry.rowStarts[firstRow]);
+                last = mHost.cellToPosition(geometry.rowStarts[lastRow]
+                        + geometry.rowCellCounts[lastRow] - 1);
+            }
+        }
+
+        if (first != mFirstPosition || last != mLastPosition) {
+            mFirstPosition = first;
+            mLastPosition = last;
+            mHost.dispatchVisibleRangeChanged(first, last);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.monlong.widget;
+
+import android.database.DataSetObserver;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 适配器监听生命周期测试：反复添加/移除窗口、切换适配器时共用的适配器上最多只有一个监听器，
+ * 宫格视图未移除窗口即被丢弃时，适配器上的监听器也不应持有它
+ */
+public class GridAdapterConnectionTest {
+
+    private static final int CYCLES = 5000;
+
+    /**
+     * 模拟每个GridLayout持有的childView大小
+     */
+    private static final int HOST_PAYLOAD_BYTES = 32 * 1024;
+
+    @Test
+    public void registersOnlyWhileAttached() throws Exception {
+        CountingAdapter adapter = new CountingAdapter();
+        GridAdapterConnection connection = new GridAdapterConnection(new Host());
+
+        connection.setAdapter(adapter);
+        assertEquals(0, adapter.dataSetObservers.size());
+        assertEquals(0, adapter.itemChangedObserverCount);
+
+        connection.onAttachedToWindow();
+        assertEquals(1, adapter.dataSetObservers.size());
+        assertEquals(1, adapter.itemChangedObserverCount);
+
+        connection.onAttachedToWindow();
+        connection.setAdapter(adapter);
+        assertEquals(1, adapter.dataSetObservers.size());
+        assertEquals(1, adapter.itemChangedObserverCount);
+
+        connection.onDetachedFromWindow();
+        assertEquals(0, adapter.dataSetObservers.size());
+        assertEquals(0, adapter.itemChangedObserverCount);
+    }
+
+    @Test
+    public void switchingAdapterReleasesPreviousAdapter() throws Exception {
+        CountingAdapter first = new CountingAdapter();
+        CountingAdapter second = new CountingAdapter();
+        GridAdapterConnection connection = new GridAdapterConnection(new Host());
+
+        connection.onAttachedToWindow();
+        connection.setAdapter(first);
+        connection.setAdapter(second);
+        assertEquals(0, first.dataSetObservers.size());
+        assertEquals(0, first.itemChangedObserverCount);
+        assertEquals(1, second.dataSetObservers.size());
+        assertEquals(1, second.itemChangedObserverCount);
+    }
+
+    @Test
+    public void deliversChangesToHost() throws Exception {
+        CountingAdapter adapter = new CountingAdapter();
+        Host host = new Host();
+        GridAdapterConnection connection = new GridAdapterConnection(host);
+        connection.setAdapter(adapter);
+        connection.onAttachedToWindow();
+
+        adapter.dispatchChanged();
+        adapter.notifyItemChanged(3, "payload");
+        assertEquals(1, host.dataChangedCount);
+        assertEquals(1, host.itemChangedCount);
+
+        connection.onDetachedFromWindow();
+        adapter.dispatchChanged();
+        adapter.notifyItemChanged(3, "payload");
+        assertEquals(1, host.dataChangedCount);
+        assertEquals(1, host.itemChangedCount);
+    }
+
+    @Test
+    public void observerDoesNotRetainCollectedHost() throws Exception {
+        CountingAdapter adapter = new CountingAdapter();
+        WeakReference<Host> hostRef = attachAndAbandon(adapter);
+
+        awaitCollected(hostRef);
+        assertNull(hostRef.get());
+
+        // 宿主已被回收，下次通知时监听器自动注销
+        adapter.dispatchChanged();
+        adapter.notifyItemChanged(0, null);
+        assertEquals(0, adapter.dataSetObservers.size());
+        assertEquals(0, adapter.itemChangedObserverCount);
+    }
+
+    @Test
+    public void attachDetachCyclesKeepAtMostOneObserver() throws Exception {
+        CountingAdapter shared = new CountingAdapter();
+
+        /**
+         * 模拟RecyclerView/ViewPager中反复添加、移除窗口并重新设置适配器的同一个GridLayout
+         */
+        Host host = new Host();
+        for (int i = 0; i < CYCLES; i++) {
+            host.connection.onAttachedToWindow();
+            assertAtMostOneObserver(shared);
+            host.connection.setAdapter(shared);
+            assertAtMostOneObserver(shared);
+            host.connection.setAdapter(i % 2 == 0 ? shared : new CountingAdapter());
+            assertAtMostOneObserver(shared);
+            host.connection.setAdapter(shared);
+            host.connection.onAttachedToWindow();
+            assertEquals(1, shared.dataSetObservers.size());
+            assertEquals(1, shared.itemChangedObserverCount);
+
+            host.connection.onDetachedFromWindow();
+            host.connection.setAdapter(shared);
+            assertEquals(0, shared.dataSetObservers.size());
+            assertEquals(0, shared.itemChangedObserverCount);
+        }
+    }
+
+    @Test
+    public void abandonedAttachedHostsAreCollectedAndObserversPruned() throws Exception {
+        CountingAdapter shared = new CountingAdapter();
+        List<WeakReference<Host>> hostRefs = new ArrayList<>();
+
+        /**
+         * 宿主被丢弃时仍处于注册状态（未经过onDetachedFromWindow），
+         * 只有监听器弱引用宿主时这些宿主才能被回收
+         */
+        long baseline = usedHeapAfterGc();
+        for (int i = 0; i < CYCLES; i++) {
+            Host host = new Host();
+            host.connection.setAdapter(shared);
+            host.connection.onAttachedToWindow();
+            hostRefs.add(new WeakReference<>(host));
+        }
+        assertEquals(CYCLES, shared.dataSetObservers.size());
+
+        awaitCollected(hostRefs.get(0));
+        awaitCollected(hostRefs.get(CYCLES - 1));
+        for (WeakReference<Host> hostRef : hostRefs) {
+            assertNull(hostRef.get());
+        }
+
+        // 所有宿主共计约CYCLES * HOST_PAYLOAD_BYTES（约160MB），泄漏任意一小部分都会超出该上限
+        long retained = usedHeapAfterGc() - baseline;
+        assertTrue("retained " + retained + " bytes", retained < 8L * 1024 * 1024);
+
+        // 下次通知时失效的监听器全部自动注销
+        shared.dispatchChanged();
+        shared.notifyItemChanged(0, null);
+        assertEquals(0, shared.dataSetObservers.size());
+        assertEquals(0, shared.itemChangedObserverCount);
+    }
+
+    private static WeakReference<Host> attachAndAbandon(CountingAdapter adapter) {
+        Host host = new Host();
+        host.connection.setAdapter(adapter);
+        host.connection.onAttachedToWindow();
+        return new WeakReference<>(host);
+    }
+
+    private static void assertAtMostOneObserver(CountingAdapter adapter) {
+        assertTrue(adapter.dataSetObservers.size() <= 1);
+        assertTrue(adapter.itemChangedObserverCount <= 1);
+    }
+
+    private static void awaitCollected(WeakReference<?> ref) throws InterruptedException {
+        for (int i = 0; i < 20 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * 模拟GridLayout：与GridLayout一样持有自身的监听关系，以及较大的childView树
+     */
+    private static class Host implements GridAdapterConnection.Callback {
+
+        final GridAdapterConnection connection = new GridAdapterConnection(this);
+        final byte[] children = new byte[HOST_PAYLOAD_BYTES];
+        int dataChangedCount;
+        int itemChangedCount;
+
+        @Override
+        public void onDataChanged() {
+            dataChangedCount++;
+        }
+
+        @Override
+        public void onItemChanged(int position, Object payload) {
+            itemChangedCount++;
+        }
+    }
+
+    /**
+     * 记录注册的监听器数量的适配器
+     */
+    private static class CountingAdapter extends GridBaseAdapter {
+
+        final List<DataSetObserver> dataSetObservers = new ArrayList<>();
+        int itemChangedObserverCount;
+
+        @Override
+        public void registerDataSetObserver(DataSetObserver observer) {
+            dataSetObservers.add(observer);
+        }
+
+        @Override
+        public void unregisterDataSetObserver(DataSetObserver observer) {
+            dataSetObservers.remove(observer);
+        }
+
+        @Override
+        void registerItemChangedObserver(ItemChangedObserver observer) {
+            super.registerItemChangedObserver(observer);
+            itemChangedObserverCount++;
+        }
+
+        @Override
+        void unregisterItemChangedObserver(ItemChangedObserver observer) {
+            super.unregisterItemChangedObserver(observer);
+            itemChangedObserverCount--;
+        }
+
+        void dispatchChanged() {
+            for (int i = dataSetObservers.size() - 1; i >= 0; i--) {
+                dataSetObservers.get(i).onChanged();
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return 0;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return null;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            return null;
+        }
+    }
+}